@@ -0,0 +1,126 @@
+package benchmarks;
+
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+
+/**
+ * Handles to the classes of the core used by the benchmarks. The core lives in the unnamed package, which cannot be imported by classes in named packages
+ * (and JMH requires benchmarks to be in a named package), so the benchmarks call it through method handles. The handles are constants, adapted to
+ * {@code Object} parameters and results, so the JIT compiler inlines them just like direct calls.
+ */
+final class CoreHandles {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private static final Class<?> CORE = type("Core");
+    private static final Class<?> CSV_LOADER = type("CsvLoader");
+    private static final Class<?> MANIFEST = type("Manifest");
+    private static final Class<?> MANIFEST_PARSER = type("ManifestParser");
+    private static final Class<?> TRANSPORTATION = type("Transportation");
+    private static final Class<?> REGISTRY = type("TransportationRegistry");
+    private static final Class<?> REPORT_WRITER = type("ReportWriter");
+    private static final Class<?> REPORT_FORMAT = type("ReportWriter$Format");
+
+    /** {@code void Core.readCsv(String)} */
+    static final MethodHandle READ_CSV = findStatic(CORE, "readCsv", MethodType.methodType(void.class, String.class));
+    /** {@code Object CsvLoader.load(Path)} */
+    static final MethodHandle LOAD_CSV = findStatic(CSV_LOADER, "load", MethodType.methodType(CSV_LOADER, Path.class))
+                                            .asType(MethodType.methodType(Object.class, Path.class));
+    /** {@code Object ManifestParser.parse(CharSequence)} */
+    static final MethodHandle PARSE_MANIFEST = findStatic(MANIFEST_PARSER, "parse", MethodType.methodType(MANIFEST, CharSequence.class))
+                                                  .asType(MethodType.methodType(Object.class, CharSequence.class));
+    /** {@code Object new Transportation(String[], Manifest)} */
+    static final MethodHandle NEW_TRANSPORTATION = findConstructor(TRANSPORTATION, MethodType.methodType(void.class, String[].class, MANIFEST))
+                                                      .asType(MethodType.methodType(Object.class, String[].class, Object.class));
+    /** {@code String Transportation.getTransportationString()} */
+    static final MethodHandle TRANSPORTATION_STRING = findVirtual(TRANSPORTATION, "getTransportationString", MethodType.methodType(String.class))
+                                                         .asType(MethodType.methodType(String.class, Object.class));
+    /** {@code Object new TransportationRegistry()} */
+    static final MethodHandle NEW_REGISTRY = findConstructor(REGISTRY, MethodType.methodType(void.class))
+                                                .asType(MethodType.methodType(Object.class));
+    /** {@code int TransportationRegistry.add(Transportation)} */
+    static final MethodHandle REGISTRY_ADD = findVirtual(REGISTRY, "add", MethodType.methodType(int.class, TRANSPORTATION))
+                                                .asType(MethodType.methodType(int.class, Object.class, Object.class));
+    /** {@code Object new ReportWriter(Writer, ReportWriter.Format)} */
+    static final MethodHandle NEW_REPORT_WRITER = findConstructor(REPORT_WRITER, MethodType.methodType(void.class, Writer.class, REPORT_FORMAT))
+                                                     .asType(MethodType.methodType(Object.class, Writer.class, Object.class));
+    /** {@code int ReportWriter.write(TransportationRegistry)} */
+    static final MethodHandle REPORT_WRITE = findVirtual(REPORT_WRITER, "write", MethodType.methodType(int.class, REGISTRY))
+                                                .asType(MethodType.methodType(int.class, Object.class, Object.class));
+
+    private CoreHandles() {
+    }
+
+    /**
+     * Returns a constant of {@code ReportWriter.Format}.
+     * @param name the name of the constant.
+     * @return the format.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object reportFormat(String name) {
+        return Enum.valueOf((Class) REPORT_FORMAT, name);
+    }
+
+    /**
+     * Loads a class of the core.
+     * @param name the binary name of the class.
+     * @return the class.
+     */
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        }
+        catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Finds a public static method of the core.
+     * @param owner the class of the method.
+     * @param name the name of the method.
+     * @param type the type of the method.
+     * @return the handle of the method.
+     */
+    private static MethodHandle findStatic(Class<?> owner, String name, MethodType type) {
+        try {
+            return LOOKUP.findStatic(owner, name, type);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Finds a public instance method of the core.
+     * @param owner the class of the method.
+     * @param name the name of the method.
+     * @param type the type of the method, without the receiver.
+     * @return the handle of the method.
+     */
+    private static MethodHandle findVirtual(Class<?> owner, String name, MethodType type) {
+        try {
+            return LOOKUP.findVirtual(owner, name, type);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Finds a public constructor of the core.
+     * @param owner the class of the constructor.
+     * @param type the type of the constructor, returning {@code void}.
+     * @return the handle of the constructor.
+     */
+    private static MethodHandle findConstructor(Class<?> owner, MethodType type) {
+        try {
+            return LOOKUP.findConstructor(owner, type);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to load the distance matrix from a CSV file, for several numbers of cities: a synthetic network the size of the real file (24 cities) and larger
+ * ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CsvLoadBenchmark {
+    @Param({"24", "500", "2000"})
+    public int cities;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("distancias", ".csv");
+        SyntheticData.writeDistances(file, cities, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Parses the CSV file into a distance matrix.
+     * @return the loader, so the work is not eliminated.
+     * @throws Throwable if the file cannot be read.
+     */
+    @Benchmark
+    public Object loadCsv() throws Throwable {
+        return (Object) CoreHandles.LOAD_CSV.invokeExact(file);
+    }
+
+    /**
+     * Loads the CSV file through {@code Core.readCsv}, which also rebuilds the index of cities.
+     * @throws Throwable if the file cannot be read.
+     */
+    @Benchmark
+    public void readCsv() throws Throwable {
+        CoreHandles.READ_CSV.invokeExact(file.toString());
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the parsing of manifests typed in option 2 of the menu (e.g.: celular/0,5/2 - tablet/1,2/5), for several numbers of items.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ManifestParseBenchmark {
+    private static final int MANIFESTS = 1024;
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    private String[] manifests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manifests = SyntheticData.manifests(MANIFESTS, items, 3);
+    }
+
+    /**
+     * Parses the next manifest.
+     * @return the parsed manifest, so the work is not eliminated.
+     * @throws Throwable if the manifest is invalid.
+     */
+    @Benchmark
+    public Object parse() throws Throwable {
+        int i = next;
+        next = (i+1) & (MANIFESTS-1);
+        return (Object) CoreHandles.PARSE_MANIFEST.invokeExact((CharSequence) manifests[i]);
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of quotes: creating a {@code Transportation} from the names of the cities and a parsed manifest, which resolves the cities, sums the legs,
+ * chooses the trucks and calculates the costs. With few distinct orders, the quotes are served by the quote cache; with many, most of them are not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class QuoteBenchmark {
+    private static final int CITIES = 100;
+
+    @Param({"64", "262144"})
+    public int orders;
+
+    private String[][] routes;
+    private Object[] manifests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Path file = Files.createTempFile("distancias", ".csv");
+        try {
+            SyntheticData.writeDistances(file, CITIES, 42);
+            CoreHandles.READ_CSV.invokeExact(file.toString());
+        }
+        finally {
+            deleteQuietly(file);
+        }
+
+        routes = SyntheticData.routes(orders, CITIES, 6, 1);
+        String[] texts = SyntheticData.manifests(orders, 5, 2);
+        manifests = new Object[orders];
+        for (int i=0; i<orders; i++) {
+            manifests[i] = (Object) CoreHandles.PARSE_MANIFEST.invokeExact((CharSequence) texts[i]);
+        }
+    }
+
+    /**
+     * Quotes the next order.
+     * @return the transportation, so the work is not eliminated.
+     * @throws Throwable if the order is invalid.
+     */
+    @Benchmark
+    public Object quote() throws Throwable {
+        int i = next;
+        next = i+1 == orders ? 0 : i+1;
+        return (Object) CoreHandles.NEW_TRANSPORTATION.invokeExact(routes[i], manifests[i]);
+    }
+
+    /**
+     * Deletes a temporary file, ignoring failures.
+     * @param file the path of the file.
+     */
+    static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            file.toFile().deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of reports: the text of a single transportation (as shown in option 3 of the menu) and whole registries written as CSV and as text.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ReportBenchmark {
+    private static final int CITIES = 100;
+
+    @Param({"1000", "100000"})
+    public int transportations;
+
+    private Object[] items;
+    private Object registry;
+    private Object csvFormat;
+    private Object textFormat;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Path file = Files.createTempFile("distancias", ".csv");
+        try {
+            SyntheticData.writeDistances(file, CITIES, 42);
+            CoreHandles.READ_CSV.invokeExact(file.toString());
+        }
+        finally {
+            QuoteBenchmark.deleteQuietly(file);
+        }
+
+        String[][] routes = SyntheticData.routes(transportations, CITIES, 6, 4);
+        String[] manifests = SyntheticData.manifests(transportations, 5, 5);
+        items = new Object[transportations];
+        registry = (Object) CoreHandles.NEW_REGISTRY.invokeExact();
+        for (int i=0; i<transportations; i++) {
+            Object manifest = (Object) CoreHandles.PARSE_MANIFEST.invokeExact((CharSequence) manifests[i]);
+            items[i] = (Object) CoreHandles.NEW_TRANSPORTATION.invokeExact(routes[i], manifest);
+            int position = (int) CoreHandles.REGISTRY_ADD.invokeExact(registry, items[i]);
+        }
+        csvFormat = CoreHandles.reportFormat("CSV");
+        textFormat = CoreHandles.reportFormat("TEXT");
+    }
+
+    /**
+     * Renders the text of the next transportation.
+     * @return the text, so the work is not eliminated.
+     * @throws Throwable if the transportation cannot be rendered.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String transportationString() throws Throwable {
+        int i = next;
+        next = i+1 == transportations ? 0 : i+1;
+        return (String) CoreHandles.TRANSPORTATION_STRING.invokeExact(items[i]);
+    }
+
+    /**
+     * Writes the whole registry as CSV.
+     * @return the number of transportations written.
+     * @throws Throwable if the report cannot be written.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int csvReport() throws Throwable {
+        Object writer = (Object) CoreHandles.NEW_REPORT_WRITER.invokeExact(Writer.nullWriter(), csvFormat);
+        return (int) CoreHandles.REPORT_WRITE.invokeExact(writer, registry);
+    }
+
+    /**
+     * Writes the whole registry as text.
+     * @return the number of transportations written.
+     * @throws Throwable if the report cannot be written.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int textReport() throws Throwable {
+        Object writer = (Object) CoreHandles.NEW_REPORT_WRITER.invokeExact(Writer.nullWriter(), textFormat);
+        return (int) CoreHandles.REPORT_WRITE.invokeExact(writer, registry);
+    }
+}
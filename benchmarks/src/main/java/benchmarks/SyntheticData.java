@@ -0,0 +1,107 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Generators of synthetic inputs for the benchmarks: distance matrices in the format of DNIT-Distancias.csv, routes and manifests of items. The data
+ * depends only on the seed, so results of different runs (and machines) are comparable.
+ */
+final class SyntheticData {
+    private static final String[] PRODUCTS = {"CELULAR", "TABLET", "NOTEBOOK", "GELADEIRA", "FOGAO", "TELEVISAO", "MICRO-ONDAS", "LAVADORA", "CADEIRA", "MESA"};
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Tells the name of a synthetic city.
+     * @param i the index of the city.
+     * @return the name of the city.
+     */
+    static String city(int i) {
+        return "CIDADE " + i;
+    }
+
+    /**
+     * Writes a symmetric distance matrix between synthetic cities, in the format of DNIT-Distancias.csv.
+     * @param file the path of the file to be written.
+     * @param cities the number of cities.
+     * @param seed the seed of the random distances.
+     * @throws IOException if the file cannot be written.
+     */
+    static void writeDistances(Path file, int cities, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] dist = new int[cities * cities];
+        for (int i=0; i<cities; i++) {
+            for (int j=i+1; j<cities; j++) {
+                dist[i*cities + j] = dist[j*cities + i] = 50 + random.nextInt(4950);
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i=0; i<cities; i++) {
+                if (i > 0) writer.write(';');
+                writer.write(city(i));
+            }
+            writer.newLine();
+            StringBuilder row = new StringBuilder(cities * 5);
+            for (int i=0; i<cities; i++) {
+                row.setLength(0);
+                for (int j=0; j<cities; j++) {
+                    if (j > 0) row.append(';');
+                    row.append(dist[i*cities + j]);
+                }
+                writer.write(row.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Generates random routes between synthetic cities.
+     * @param count the number of routes.
+     * @param cities the number of cities.
+     * @param maxLength the maximum number of cities of each route (at least 2).
+     * @param seed the seed of the random routes.
+     * @return the names of the cities of each route.
+     */
+    static String[][] routes(int count, int cities, int maxLength, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[][] routes = new String[count][];
+        for (int r=0; r<count; r++) {
+            routes[r] = new String[2 + random.nextInt(Math.max(maxLength - 1, 1))];
+            for (int i=0; i<routes[r].length; i++) {
+                routes[r][i] = city(random.nextInt(cities));
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Generates random manifests, in the format typed in option 2 of the menu (e.g.: celular/0,5/2 - tablet/1,2/5).
+     * @param count the number of manifests.
+     * @param items the number of items of each manifest.
+     * @param seed the seed of the random manifests.
+     * @return the manifests.
+     */
+    static String[] manifests(int count, int items, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] manifests = new String[count];
+        StringBuilder sb = new StringBuilder();
+        for (int m=0; m<count; m++) {
+            sb.setLength(0);
+            for (int i=0; i<items; i++) {
+                if (i > 0) sb.append(" - ");
+                sb.append(PRODUCTS[random.nextInt(PRODUCTS.length)].toLowerCase()).append('/')
+                  .append(random.nextInt(500)).append(',').append(1 + random.nextInt(9)).append('/')
+                  .append(1 + random.nextInt(20));
+            }
+            manifests[m] = sb.toString();
+        }
+        return manifests;
+    }
+}
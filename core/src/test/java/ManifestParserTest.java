@@ -0,0 +1,116 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests of {@code ManifestParser}, whose single pass over the manifest must give the same items as the former parsing by {@code String.split}, and
+ * point at the right position when the manifest is malformed.
+ */
+class ManifestParserTest {
+    /**
+     * On well-formed manifests, with "," or "." as the decimal separator and spaces around every field, the items are the same as those of the
+     * former parsing.
+     */
+    @Test
+    void itemsAreTheSameAsWithSplit() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (int m=0; m<500; m++) {
+            StringBuilder text = new StringBuilder();
+            int items = 1 + random.nextInt(6);
+            for (int i=0; i<items; i++) {
+                if (i > 0) text.append(spaces(random)).append('-');
+                text.append(spaces(random)).append(i % 2 == 0 ? "caixa " : "Pneu aro ").append(random.nextInt(100)).append(spaces(random)).append('/');
+                text.append(spaces(random)).append(1 + random.nextInt(5000));
+                if (random.nextBoolean()) {
+                    text.append(random.nextBoolean() ? ',' : '.').append(random.nextInt(1000));
+                }
+                text.append(spaces(random)).append('/').append(spaces(random)).append(1 + random.nextInt(1000)).append(spaces(random));
+            }
+
+            Manifest expected = splitParse(text.toString());
+            Manifest actual = ManifestParser.parse(text);
+            assertEquals(expected.size(), actual.size(), text.toString());
+            for (int i=0; i<expected.size(); i++) {
+                assertEquals(expected.getName(i), actual.getName(i), text.toString());
+                assertEquals(expected.getWeight(i), actual.getWeight(i), text.toString());
+                assertEquals(expected.getQuantity(i), actual.getQuantity(i), text.toString());
+            }
+        }
+    }
+
+    /**
+     * A "-" only separates items when it comes after a quantity, so names may contain it, which the former parsing did not allow.
+     */
+    @Test
+    void namesMayContainHyphens() {
+        Manifest manifest = ManifestParser.parse(" cabo-usb / 0,25 / 3 -  mini-system/12.5/1 ");
+        assertEquals(2, manifest.size());
+        assertArrayEquals(new String[] {"CABO-USB", "MINI-SYSTEM"}, new String[] {manifest.getName(0), manifest.getName(1)});
+        assertEquals(0.25, manifest.getWeight(0));
+        assertEquals(12.5, manifest.getWeight(1));
+        assertEquals(3, manifest.getQuantity(0));
+        assertEquals(1, manifest.getQuantity(1));
+    }
+
+    /**
+     * Malformed manifests are rejected with a message telling what is wrong and where, counting the characters from 1.
+     * @param text the manifest.
+     * @param message the expected message of the exception.
+     */
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "''                  | Empty manifest. (position 1)",
+        "'   '               | Empty manifest. (position 4)",
+        "caixa               | Missing \"/\" after the name of the item. (position 1)",
+        "caixa/x/2           | The weight of the item must be a real number. (position 7)",
+        "caixa/0,0/2         | The weight of the item must be positive. (position 7)",
+        "caixa/1,5           | Expected \"/\". (position 10)",
+        "caixa/1,5/          | The quantity of the item must be an integer. (position 11)",
+        "caixa/1,5/2,5       | Expected \"-\". (position 12)",
+        "caixa/1,5/0         | The quantity of the item must be positive. (position 11)",
+        "caixa/1,5/x         | The quantity of the item must be an integer. (position 11)",
+        "caixa/1,5/3000000000| The quantity of the item is too large. (position 11)",
+        "caixa/1/2 pneu/3/4  | Expected \"-\". (position 11)",
+        "caixa/1/2 -         | Missing \"/\" after the name of the item. (position 12)",
+    })
+    void malformedManifestsAreRejected(String text, String message) {
+        ManifestParseException e = assertThrows(ManifestParseException.class, () -> ManifestParser.parse(text));
+        assertEquals(message, e.getMessage());
+    }
+
+    /**
+     * Parses a manifest in the former way: splitting it at every "-" and then at the first and last "/" of each item.
+     * @param text the manifest.
+     * @return the parsed items.
+     */
+    private static Manifest splitParse(String text) {
+        String[] items = text.trim().toUpperCase(Locale.ROOT).split("-");
+        String[] names = new String[items.length];
+        double[] weights = new double[items.length];
+        int[] quantities = new int[items.length];
+        for (int i=0; i<items.length; i++) {
+            int firstSlash = items[i].indexOf('/');
+            int lastSlash = items[i].lastIndexOf('/');
+            names[i] = items[i].substring(0, firstSlash).trim();
+            weights[i] = Double.parseDouble(items[i].substring(firstSlash+1, lastSlash).trim().replace(',', '.'));
+            quantities[i] = Integer.parseInt(items[i].substring(lastSlash+1).trim());
+        }
+        return new Manifest(names, weights, quantities, items.length);
+    }
+
+    /**
+     * Returns up to two random spaces.
+     * @param random the source of the random spaces.
+     * @return a string of zero to two spaces.
+     */
+    private static String spaces(SplittableRandom random) {
+        return " ".repeat(random.nextInt(3));
+    }
+}
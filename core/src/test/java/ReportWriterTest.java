@@ -0,0 +1,57 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@code ReportWriter}, which formats numbers by hand and must give the same results as {@code String.format}.
+ */
+class ReportWriterTest {
+    private static final Locale PT_BR = new Locale("pt", "BR");
+
+    /**
+     * Half cents are rounded up, as {@code String.format} does, even when the nearest double is slightly below the half.
+     */
+    @Test
+    void appendFixedRoundsHalfCentsLikeStringFormat() {
+        for (long halfCents=0; halfCents<400_000; halfCents+=2) {
+            assertFormattedLikeStringFormat((halfCents + 1) / 200.0);
+        }
+        assertFormattedLikeStringFormat(1.005);
+        assertFormattedLikeStringFormat(2.675);
+        assertFormattedLikeStringFormat(9.995);
+        assertFormattedLikeStringFormat(1234567.895);
+    }
+
+    /**
+     * Costs of every magnitude, including negative and very large numbers, are formatted as by {@code String.format}.
+     */
+    @Test
+    void appendFixedFormatsAnyCostLikeStringFormat() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i=0; i<100_000; i++) {
+            double cost = random.nextDouble() * Math.pow(10, random.nextInt(12));
+            assertFormattedLikeStringFormat(cost);
+            assertFormattedLikeStringFormat(Math.round(cost * 1000) / 1000.0);
+        }
+        for (double value : new double[] {0.0, -0.0, -0.001, -1.005, 1e-5, 0.995, 9e16, 1e20, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY}) {
+            assertFormattedLikeStringFormat(value);
+        }
+    }
+
+    /**
+     * Checks that a number is formatted by {@code ReportWriter.appendFixed} as by {@code String.format}, with both decimal separators.
+     * @param value the number.
+     */
+    private static void assertFormattedLikeStringFormat(double value) {
+        StringBuilder sb = new StringBuilder();
+        ReportWriter.appendFixed(sb, value, '.');
+        assertEquals(String.format(Locale.ROOT, "%.2f", value), sb.toString(), () -> "value " + value);
+
+        sb.setLength(0);
+        ReportWriter.appendFixed(sb, value, ',');
+        assertEquals(String.format(PT_BR, "%.2f", value), sb.toString(), () -> "value " + value);
+    }
+}
@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@code RouteOptimizer}, whose 2-opt and Or-opt moves must never make a route longer.
+ */
+class RouteOptimizerTest {
+    private static final int CITIES = 40;
+
+    /**
+     * Installs the synthetic network in which the routes are optimized.
+     */
+    @BeforeAll
+    static void installNetwork() {
+        TestNetwork.install(CITIES, 7);
+    }
+
+    /**
+     * The optimized route visits the same cities, keeps the origin and the final destination, and is never longer than the original one.
+     */
+    @Test
+    void optimizedRouteIsNeverLonger() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int r=0; r<200; r++) {
+            int[] route = randomRoute(random, 4 + random.nextInt(9));
+            int[] optimized = RouteOptimizer.optimize(route, 2);
+
+            assertEquals(route[0], optimized[0]);
+            assertEquals(route[route.length-1], optimized[optimized.length-1]);
+            int[] expectedCities = route.clone();
+            int[] actualCities = optimized.clone();
+            Arrays.sort(expectedCities);
+            Arrays.sort(actualCities);
+            assertArrayEquals(expectedCities, actualCities);
+            assertTrue(TestNetwork.length(optimized) <= TestNetwork.length(route), "the route " + Arrays.toString(route) + " got longer");
+        }
+    }
+
+    /**
+     * Routes with up to {@code EXHAUSTIVE_CITIES} intermediate cities are optimized to the shortest of all their orders.
+     */
+    @Test
+    void shortRoutesAreOptimal() {
+        SplittableRandom random = new SplittableRandom(13);
+        for (int r=0; r<50; r++) {
+            int[] route = randomRoute(random, 4 + random.nextInt(4));
+            int[] optimized = RouteOptimizer.optimize(route, 1);
+            assertEquals(shortest(route, 1), TestNetwork.length(optimized), "the route " + Arrays.toString(route) + " is not the shortest");
+        }
+    }
+
+    /**
+     * Time budgets that are not positive or exceed the maximum are rejected.
+     */
+    @Test
+    void timeBudgetOutOfRangeIsRejected() {
+        int[] route = {0, 1, 2, 3, 4};
+        assertThrows(IllegalArgumentException.class, () -> RouteOptimizer.optimize(route, 0));
+        assertThrows(IllegalArgumentException.class, () -> RouteOptimizer.optimize(route, -1));
+        assertThrows(IllegalArgumentException.class, () -> RouteOptimizer.optimize(route, RouteOptimizer.MAX_TIME_BUDGET_MILLIS + 1));
+    }
+
+    /**
+     * Tells the length of the shortest route with the same origin and final destination as a route, by trying every order of its intermediate cities.
+     * @param route the route, whose intermediate cities from position {@code pos} on are permuted in place and restored.
+     * @param pos the first position still to be chosen.
+     * @return the length of the shortest order, in km.
+     */
+    private static long shortest(int[] route, int pos) {
+        if (pos >= route.length - 2) return TestNetwork.length(route);
+
+        long best = Long.MAX_VALUE;
+        for (int i=pos; i<route.length-1; i++) {
+            int tmp = route[pos]; route[pos] = route[i]; route[i] = tmp;
+            best = Math.min(best, shortest(route, pos + 1));
+            tmp = route[pos]; route[pos] = route[i]; route[i] = tmp;
+        }
+        return best;
+    }
+
+    /**
+     * Builds a route through distinct random cities.
+     * @param random the source of the random cities.
+     * @param length the number of cities of the route.
+     * @return the indexes of the cities of the route.
+     */
+    private static int[] randomRoute(SplittableRandom random, int length) {
+        return random.ints(0, CITIES).distinct().limit(length).toArray();
+    }
+}
@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests of {@code ShortestPaths}, whose blocked Floyd-Warshall algorithm must give the same distances as the naive one.
+ */
+class ShortestPathsTest {
+    /**
+     * The distances computed by blocks are the same as those of the naive algorithm, on sparse asymmetric graphs of sizes that are, and are not,
+     * multiples of the size of the blocks. The rebuilt paths go only through existing roads and add up to the shortest distances.
+     * @param n the number of cities.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5, 63, 64, 65, 100, 130, 200})
+    void blockedFloydWarshallEqualsNaive(int n) {
+        SplittableRandom random = new SplittableRandom(n);
+        DistanceMatrix matrix = new DistanceMatrix(n, false);
+        for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++) {
+                if (i != j) matrix.set(i, j, random.nextInt(4) == 0 ? 1 + random.nextInt(1000) : -1);
+            }
+        }
+
+        int[][] expected = naiveFloydWarshall(matrix);
+        ShortestPaths paths = ShortestPaths.compute(matrix);
+        for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++) {
+                assertEquals(expected[i][j], paths.distance(i, j), "distance from " + i + " to " + j);
+
+                int[] path = paths.path(i, j);
+                if (expected[i][j] >= ShortestPaths.UNREACHABLE) {
+                    assertArrayEquals(new int[0], path);
+                    continue;
+                }
+                assertEquals(i, path[0]);
+                assertEquals(j, path[path.length-1]);
+                long length = 0;
+                for (int k=0; k+1<path.length; k++) {
+                    int leg = matrix.distance(path[k], path[k+1]);
+                    assertTrue(leg >= 0, "the path from " + i + " to " + j + " uses a missing road");
+                    length += leg;
+                }
+                assertEquals(expected[i][j], length, "length of the path from " + i + " to " + j);
+            }
+        }
+    }
+
+    /**
+     * Computes the shortest distances with the textbook Floyd-Warshall algorithm.
+     * @param matrix the direct distances, negative where there is no road.
+     * @return the shortest distances, {@code ShortestPaths.UNREACHABLE} where there is no path.
+     */
+    private static int[][] naiveFloydWarshall(DistanceMatrix matrix) {
+        int n = matrix.size();
+        long[][] dist = new long[n][n];
+        for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++) {
+                int d = i == j ? 0 : matrix.distance(i, j);
+                dist[i][j] = d < 0 ? Long.MAX_VALUE / 4 : d;
+            }
+        }
+        for (int k=0; k<n; k++) {
+            for (int i=0; i<n; i++) {
+                for (int j=0; j<n; j++) {
+                    dist[i][j] = Math.min(dist[i][j], dist[i][k] + dist[k][j]);
+                }
+            }
+        }
+
+        int[][] result = new int[n][n];
+        for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++) {
+                result[i][j] = dist[i][j] >= ShortestPaths.UNREACHABLE ? ShortestPaths.UNREACHABLE : (int) dist[i][j];
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic network of cities installed in {@code Core} by the tests that quote transportations, so they do not depend on DNIT-Distancias.csv.
+ */
+final class TestNetwork {
+    private TestNetwork() {
+    }
+
+    /**
+     * Installs a network with random, asymmetric distances between every pair of cities, named "CIDADE 0", "CIDADE 1" and so on, and empties the
+     * quote cache.
+     * @param n the number of cities.
+     * @param seed the seed of the random distances.
+     */
+    static void install(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] names = new String[n];
+        DistanceMatrix matrix = new DistanceMatrix(n, false);
+        for (int i=0; i<n; i++) {
+            names[i] = "CIDADE " + i;
+            for (int j=0; j<n; j++) {
+                if (i != j) matrix.set(i, j, 50 + random.nextInt(4950));
+            }
+        }
+
+        Core.cityIndex = new CityIndex(names);
+        Core.cities = Core.cityIndex.names();
+        Core.distances = matrix;
+        Core.shortestPaths = null;
+        Core.quoteCache.clear();
+    }
+
+    /**
+     * Tells the total distance of a route in the installed network.
+     * @param route the indexes of the cities of the route.
+     * @return the sum of the distances of the legs of the route, in km.
+     */
+    static long length(int[] route) {
+        long length = 0;
+        for (int i=0; i+1<route.length; i++) {
+            length += Core.distance(route[i], route[i+1]);
+        }
+        return length;
+    }
+}
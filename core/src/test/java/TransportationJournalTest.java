@@ -0,0 +1,161 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of {@code TransportationJournal}, whose replay must give back the transportations that were durably appended, in order, whatever happened to
+ * the files in between.
+ */
+class TransportationJournalTest {
+    private static final int CITIES = 20;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Installs the synthetic network of the journaled transportations.
+     */
+    @BeforeAll
+    static void installNetwork() {
+        TestNetwork.install(CITIES, 3);
+    }
+
+    /**
+     * A record torn by a crash at the end of the journal is discarded and cut off, and the journal keeps working after it.
+     * @throws IOException if the journal cannot be written or read.
+     */
+    @Test
+    void replayAfterTornTailGivesBackTheRegistry() throws IOException {
+        Path log = dir.resolve("transportes.journal");
+        Path snapshot = dir.resolve("transportes.snapshot");
+        List<String> expected = new ArrayList<>();
+        try (TransportationJournal journal = open(log, snapshot, TransportationJournal.COMPACTION_THRESHOLD, expected)) {
+            appendRandom(journal, 50, 1, expected);
+        }
+
+        long validSize = Files.size(log);
+        try (FileChannel out = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer torn = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            torn.putInt(100).putInt(2).putInt(7).flip();
+            out.write(torn);
+        }
+
+        try (TransportationJournal journal = open(log, snapshot, TransportationJournal.COMPACTION_THRESHOLD, expected)) {
+            assertEquals(validSize, Files.size(log), "the torn record was not cut off");
+            appendRandom(journal, 5, 2, expected);
+        }
+        open(log, snapshot, TransportationJournal.COMPACTION_THRESHOLD, expected).close();
+        assertEquals(55, expected.size());
+    }
+
+    /**
+     * Transportations merged into the snapshot by compactions are replayed together with those still in the journal, in the order they were appended.
+     * @throws IOException if the journal cannot be written or read.
+     */
+    @Test
+    void replayAfterCompactionGivesBackTheRegistry() throws IOException {
+        Path log = dir.resolve("transportes.journal");
+        Path snapshot = dir.resolve("transportes.snapshot");
+        List<String> expected = new ArrayList<>();
+        try (TransportationJournal journal = open(log, snapshot, 2048, expected)) {
+            appendRandom(journal, 300, 4, expected);
+        }
+        assertTrue(Files.isRegularFile(snapshot), "the journal was never compacted");
+        assertTrue(Files.size(log) <= 2048 + 1024, "the journal was not compacted at the end");
+
+        try (TransportationJournal journal = open(log, snapshot, 2048, expected)) {
+            appendRandom(journal, 10, 5, expected);
+        }
+        open(log, snapshot, TransportationJournal.COMPACTION_THRESHOLD, expected).close();
+        assertEquals(310, expected.size());
+    }
+
+    /**
+     * A journal written for a network is refused by a network with the same number of cities in a different order, instead of being replayed into the
+     * wrong cities.
+     * @throws IOException if the journal cannot be written.
+     */
+    @Test
+    void journalOfAnotherNetworkIsRefused() throws IOException {
+        Path log = dir.resolve("transportes.journal");
+        Path snapshot = dir.resolve("transportes.snapshot");
+        List<String> expected = new ArrayList<>();
+        try (TransportationJournal journal = open(log, snapshot, TransportationJournal.COMPACTION_THRESHOLD, expected)) {
+            appendRandom(journal, 5, 6, expected);
+        }
+
+        String[] cities = Core.cities;
+        String[] swapped = cities.clone();
+        swapped[0] = cities[1];
+        swapped[1] = cities[0];
+        Core.cities = swapped;
+        try {
+            assertThrows(IOException.class, () -> TransportationJournal.open(log, snapshot));
+        }
+        finally {
+            Core.cities = cities;
+        }
+    }
+
+    /**
+     * Opens a journal and checks that the transportations replayed from it are the expected ones.
+     * @param log the path of the journal file.
+     * @param snapshot the path of the snapshot file.
+     * @param compactionThreshold the size beyond which the journal is compacted.
+     * @param expected the descriptions of the transportations appended so far, in order.
+     * @return the opened journal.
+     * @throws IOException if the journal cannot be opened.
+     */
+    private static TransportationJournal open(Path log, Path snapshot, long compactionThreshold, List<String> expected) throws IOException {
+        int before = Core.transportations.size();
+        TransportationJournal journal = TransportationJournal.open(log, snapshot, compactionThreshold);
+        List<String> replayed = new ArrayList<>();
+        for (int i=before; i<Core.transportations.size(); i++) {
+            replayed.add(Core.transportations.get(i).getTransportationString());
+        }
+        assertEquals(expected, replayed);
+        return journal;
+    }
+
+    /**
+     * Appends random transportations to a journal, waiting until each one is durably stored.
+     * @param journal the journal.
+     * @param count how many transportations to append.
+     * @param seed the seed of the random transportations.
+     * @param expected the list where the descriptions of the appended transportations are added.
+     */
+    private static void appendRandom(TransportationJournal journal, int count, long seed, List<String> expected) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int t=0; t<count; t++) {
+            int[] route = random.ints(0, CITIES).distinct().limit(2 + random.nextInt(5)).toArray();
+            int types = 1 + random.nextInt(3);
+            String[] names = new String[types];
+            double[] weights = new double[types];
+            int[] quantities = new int[types];
+            for (int i=0; i<types; i++) {
+                names[i] = "ITEM " + random.nextInt(10);
+                weights[i] = 0.5 + random.nextInt(2000) / 4.0;
+                quantities[i] = 1 + random.nextInt(20);
+            }
+
+            Transportation transp = new Transportation(route, new Manifest(names, weights, quantities, types));
+            journal.append(transp).join();
+            expected.add(transp.getTransportationString());
+        }
+    }
+}
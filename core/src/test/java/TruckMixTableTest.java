@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@code TruckMixTable}, whose combinations of trucks must always carry the weight and never cost more than the greedy split.
+ */
+class TruckMixTableTest {
+    private static final FleetModel FLEET = FleetModel.defaults();
+    private static final TruckMixTable TABLE = FLEET.getMixTable();
+
+    /**
+     * For every bucket of the table, and beyond it, the combination carries the weight and costs no more than filling large, then medium, then small
+     * trucks.
+     */
+    @Test
+    void mixCostsNoMoreThanGreedyForEveryBucket() {
+        int bucketSize = Core.MAX_WEIGHT_SMALL_TRUCK;
+        for (int b=1; b<=2*TruckMixTable.DEFAULT_BUCKETS; b++) {
+            for (double weight : new double[] {b * (double) bucketSize, b * (double) bucketSize - 0.5}) {
+                int[] mix = TABLE.mix(weight);
+                assertTrue(capacity(mix) >= weight, "the trucks do not carry " + weight + " kg");
+                assertEquals(FLEET.costPerKm(mix), TABLE.costPerKm(weight), 1e-9, "cost per km of " + weight + " kg");
+                assertTrue(TABLE.costPerKm(weight) <= greedyCostPerKm(weight) + 1e-9, "more expensive than greedy for " + weight + " kg");
+            }
+        }
+    }
+
+    /**
+     * For loads of up to 60 t, the combination is the cheapest of all combinations able to carry the weight.
+     */
+    @Test
+    void mixIsTheCheapestForSmallLoads() {
+        for (int weight=1; weight<=60_000; weight+=250) {
+            assertEquals(cheapestCostPerKm(FLEET, weight), TABLE.costPerKm(weight), 1e-9, "cost per km of " + weight + " kg");
+        }
+    }
+
+    /**
+     * For a fleet whose capacities have a small common divisor, and whose cheapest trucks per kg are not the largest ones, the combination is still
+     * the cheapest of all for loads beyond {@code DEFAULT_BUCKETS} buckets, and for loads so heavy that the table pads them with trucks.
+     */
+    @Test
+    void mixIsTheCheapestForAnUnevenFleet() {
+        FleetModel fleet = new FleetModel(new String[] {"a", "b", "c"}, new String[] {"A", "B", "C"},
+                                          new double[] {6.6, 6.1, 7.3}, new int[] {1910, 4610, 5780});
+        TruckMixTable table = fleet.getMixTable();
+        for (int weight=1; weight<=120_000; weight+=37) {
+            int[] mix = table.mix(weight);
+            long capacity = 0;
+            for (int k=0; k<mix.length; k++) capacity += (long) mix[k] * fleet.getCapacity(k);
+            assertTrue(capacity >= weight, "the trucks do not carry " + weight + " kg");
+            assertEquals(cheapestCostPerKm(fleet, weight), table.costPerKm(weight), 1e-9, "cost per km of " + weight + " kg");
+        }
+        for (int weight : new int[] {4_000_003, 4_123_457, 5_000_000}) {
+            assertEquals(cheapestCostPerKm(fleet, weight), table.costPerKm(weight), 1e-6, "cost per km of " + weight + " kg");
+        }
+    }
+
+    /**
+     * Tells the price per km of the cheapest combination of trucks of a fleet of three classes able to carry a weight, by trying every combination.
+     * @param fleet the fleet.
+     * @param weight the weight, in kg.
+     * @return the lowest price per km of the combinations able to carry the weight.
+     */
+    private static double cheapestCostPerKm(FleetModel fleet, int weight) {
+        double best = Double.POSITIVE_INFINITY;
+        int[] n = new int[3];
+        for (n[2]=0; n[2]<=weight / fleet.getCapacity(2) + 1; n[2]++) {
+            for (n[1]=0; n[1]<=weight / fleet.getCapacity(1) + 1; n[1]++) {
+                long rest = Math.max(weight - (long) n[2] * fleet.getCapacity(2) - (long) n[1] * fleet.getCapacity(1), 0);
+                n[0] = (int) ((rest + fleet.getCapacity(0) - 1) / fleet.getCapacity(0));
+                best = Math.min(best, fleet.costPerKm(n));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Tells the cost per km of the greedy split: as many large trucks as are filled, then medium trucks, then enough small trucks for the rest.
+     * @param weight the weight, in kg.
+     * @return the price per km of the trucks of the greedy split.
+     */
+    private static double greedyCostPerKm(double weight) {
+        int[] n = new int[3];
+        n[2] = (int) (weight / Core.MAX_WEIGHT_LARGE_TRUCK);
+        double rest = weight - n[2] * (double) Core.MAX_WEIGHT_LARGE_TRUCK;
+        n[1] = (int) (rest / Core.MAX_WEIGHT_MEDIUM_TRUCK);
+        rest -= n[1] * (double) Core.MAX_WEIGHT_MEDIUM_TRUCK;
+        n[0] = (int) Math.ceil(rest / Core.MAX_WEIGHT_SMALL_TRUCK);
+        return FLEET.costPerKm(n);
+    }
+
+    /**
+     * Tells the weight carried by a combination of trucks.
+     * @param mix the number of trucks of each class of the fleet.
+     * @return the total capacity of the trucks, in kg.
+     */
+    private static long capacity(int[] mix) {
+        long capacity = 0;
+        for (int k=0; k<mix.length; k++) {
+            capacity += (long) mix[k] * FLEET.getCapacity(k);
+        }
+        return capacity;
+    }
+}
@@ -1,10 +1,9 @@
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 
 import javax.swing.JOptionPane;
 
@@ -12,46 +11,108 @@ import javax.swing.JOptionPane;
  * Main class of the program. This class carries out the communication (input/output) between the pgoram and the user, and this is the class that should be executed to run the program.
  */
 public class App {
-    public static final int CITY_COUNT = 24;
-    public static final double SMALL_TRUCK_PRICE = 4.87;
-    public static final double MEDIUM_TRUCK_PRICE = 11.92;
-    public static final double LARGE_TRUCK_PRICE = 27.44;
-    public static final int MAX_WEIGHT_SMALL_TRUCK = 1000;
-    public static final int MAX_WEIGHT_MEDIUM_TRUCK = 4000;
-    public static final int MAX_WEIGHT_LARGE_TRUCK = 10000;
-
-    public static int[][] distances = new int[CITY_COUNT][CITY_COUNT];
-    public static String[] cities = new String[CITY_COUNT];
-    public static ArrayList<Transportation> transportations = new ArrayList<>();
+    public static final int STATISTICS_PAGE_SIZE = 50;
 
     public static void main(String[] args) throws Exception {
-        readCsv("DNIT-Distancias.csv");
+        Core.loadNetwork("DNIT-Distancias.csv", "DNIT-Distancias.bin");
+        System.err.printf("Distâncias entre %d cidades carregadas em %d ms.%n", Core.cities.length, Core.loadTimeMillis);
+        if (Boolean.getBoolean("shortestPaths")) {
+            Core.shortestPaths = ShortestPaths.compute(Core.distances);
+            Core.quoteCache.clear();
+        }
+
+        if (args.length > 0 && args[0].equals("--batch")) {
+            if (args.length != 3) {
+                System.err.println("Uso: java App --batch <arquivo de pedidos> <arquivo de saída (.csv ou .jsonl)>");
+                System.exit(2);
+            }
+            BatchQuoter.run(Paths.get(args[1]), Paths.get(args[2]));
+            if (Metrics.ENABLED) System.err.print(Metrics.dump());
+            return;
+        }
+
+        Core.openJournal("transportes.journal", "transportes.snapshot");
+
+        if (args.length > 0 && args[0].equals("--report")) {
+            if (args.length < 2 || args.length > 3) {
+                System.err.println("Uso: java App --report <arquivo de saída (.csv, .jsonl ou .txt)> [cidade]");
+                System.exit(2);
+            }
+            try (Writer out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                ReportWriter report = new ReportWriter(out, ReportWriter.formatOf(args[1]));
+                if (args.length == 3) {
+                    int city = Core.cityIndex.indexOf(args[2]);
+                    if (city < 0) {
+                        System.err.println("A cidade informada não consta no sistema.");
+                        System.exit(2);
+                    }
+                    report.withCity(city);
+                }
+                System.out.printf("%d transportes exportados.%n", report.write(Core.transportations));
+            }
+            Core.journal.close();
+            if (Metrics.ENABLED) System.err.print(Metrics.dump());
+            return;
+        }
+
+        if (args.length > 0 && (args[0].equals("--simulate") || args[0].equals("--monte-carlo"))) {
+            simulate(args);
+            Core.journal.close();
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : QuoteServer.DEFAULT_PORT;
+            QuoteServer.start(port);
+            System.out.printf("Servidor de cotações ouvindo na porta %d.%n", port);
+            return;
+        }
+
         askForInputAndHandle();
     }
 
     /**
-     * Reads the CSV file containing the distances between the cities.
-     * @param file the path of the file to be read.
+     * Simulates the registered transportations under other prices and distances, as requested in the command line, and prints the results:
+     * {@code --simulate <cenário> [cenário ...]} simulates fixed scenarios (e.g. "grandes=+12%,distancias=+5%"), while
+     * {@code --monte-carlo <amostras> <desvio dos preços> <desvio das distâncias> [semente]} samples prices and distances at random.
+     * @param args the command line arguments.
      */
-    public static void readCsv(String file) {
-        Path path = Paths.get(file);
-        try (BufferedReader reader = Files.newBufferedReader(path, Charset.forName("utf8"))) {
-            String line = reader.readLine();
-            cities = line.split(";");
-
-            int count = 0;
-            while((line = reader.readLine()) != null) {
-                String[] data = line.split(";");
-                for (int i=0; i<data.length; i++) {
-                    distances[count][i] = Integer.parseInt(data[i]);
+    private static void simulate(String[] args) {
+        boolean monteCarlo = args[0].equals("--monte-carlo");
+        if (monteCarlo ? args.length < 4 || args.length > 5 : args.length < 2) {
+            System.err.println("Uso: java App --simulate <cenário> [cenário ...]");
+            System.err.println("     java App --monte-carlo <amostras> <desvio dos preços> <desvio das distâncias> [semente]");
+            System.err.println("Cenários: alterações separadas por \",\", como \"grandes=+12%,distancias=+5%\" (chaves: classes da frota, precos ou distancias).");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        RepricingSimulator simulator = new RepricingSimulator(Core.transportations, Core.fleet);
+        try {
+            if (monteCarlo) {
+                int samples = Integer.parseInt(args[1]);
+                RepricingSimulator.Result result = simulator.monteCarlo(String.join(" ", args), samples, Double.parseDouble(args[2]),
+                                                                        Double.parseDouble(args[3]), args.length > 4 ? Long.parseLong(args[4]) : 0);
+                System.out.printf("%d amostras de %d transportes. Custo total atual: R$ %.2f%n", samples, simulator.size(), result.getBaselineTotal());
+                System.out.printf("Custo total: média R$ %.2f (%+.2f%%) | mín. R$ %.2f | P5 R$ %.2f | P50 R$ %.2f | P95 R$ %.2f | P99 R$ %.2f | máx. R$ %.2f%n",
+                                  result.getMean(), result.getVariation()*100, result.getMin(), result.getP5(), result.getP50(), result.getP95(),
+                                  result.getP99(), result.getMax());
+            }
+            else {
+                System.out.printf("%d transportes simulados.%n", simulator.size());
+                for (int i=1; i<args.length; i++) {
+                    RepricingSimulator.Result result = simulator.run(RepricingSimulator.Scenario.parse(args[i], Core.fleet));
+                    System.out.printf("%s: custo total R$ %.2f (%+.2f%%) | por transporte: média R$ %.2f | P50 R$ %.2f | P95 R$ %.2f | P99 R$ %.2f | máx. R$ %.2f%n",
+                                      result.getName(), result.getTotal(), result.getVariation()*100, result.getMean(), result.getP50(), result.getP95(),
+                                      result.getP99(), result.getMax());
                 }
-                count++;
             }
         }
-        catch (IOException e) {
-            e.printStackTrace();
-            System.exit(1);
+        catch (IllegalArgumentException e) {
+            System.err.println("Simulação inválida: " + e.getMessage());
+            System.exit(2);
         }
+        System.out.printf("Simulação concluída em %d ms.%n", (System.nanoTime() - start) / 1_000_000);
     }
 
     /**
@@ -119,24 +180,29 @@ public class App {
             return;
         }
 
-        int initCityIdx = -1;
-        int finalCityIdx = -1;
-        for (int i=0; i<cities.length; i++) {
-            if (cities[i].equals(listOfCities[0])) initCityIdx = i;
-            else if (cities[i].equals(listOfCities[1])) finalCityIdx = i;
-        }
+        int initCityIdx = Core.cityIndex.indexOf(listOfCities[0]);
+        int finalCityIdx = Core.cityIndex.indexOf(listOfCities[1]);
 
         int distance = 0;
-        if ((initCityIdx >= 0 && initCityIdx <= CITY_COUNT) && 
-            (finalCityIdx >= 0 && finalCityIdx <= CITY_COUNT)) {
-            distance = distances[initCityIdx][finalCityIdx];
+        if (initCityIdx >= 0 && finalCityIdx >= 0) {
+            try {
+                distance = Core.legDistance(initCityIdx, finalCityIdx);
+            }
+            catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(null, "Não há caminho entre as cidades digitadas. Retornando ao menu inicial.", "SEM CAMINHO", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
         }
         else {
             JOptionPane.showMessageDialog(null, "As cidades digitadas não constam no sistema. Retornando ao menu inicial.", "CIDADE INVÁLIDA!", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        String transpOptionS = JOptionPane.showInputDialog(null, "Selecione a opção de transporte desejada, de acordo com o menu:\n\t1 - Pequeno porte;\n\t2 - Médio porte;\n\t3 - Grande porte.", "OPÇÃO DE TRANSPORTE", JOptionPane.INFORMATION_MESSAGE);
+        StringBuilder menu = new StringBuilder("Selecione a opção de transporte desejada, de acordo com o menu:");
+        for (int k=0; k<Core.fleet.size(); k++) {
+            menu.append("\n\t").append(k+1).append(" - ").append(Core.fleet.getName(k)).append(k < Core.fleet.size()-1 ? ";" : ".");
+        }
+        String transpOptionS = JOptionPane.showInputDialog(null, menu.toString(), "OPÇÃO DE TRANSPORTE", JOptionPane.INFORMATION_MESSAGE);
         
         int transpOption = 0;
         if (Character.isDigit(transpOptionS.charAt(0)))
@@ -147,24 +213,15 @@ public class App {
         }
 
         String transportation = "";
-        if (transpOption >= 1 && transpOption <= 3) {
-            switch (transpOption) {
-                case 1: transportation = "CAMINHÃO DE PEQUENO PORTE"; break;
-                case 2: transportation = "CAMINHÃO DE MÉDIO PORTE";   break;
-                case 3: transportation = "CAMINHÃO DE GRANDE PORTE";  break;
-            }
+        if (transpOption >= 1 && transpOption <= Core.fleet.size()) {
+            transportation = "CAMINHÃO DE " + Core.fleet.getName(transpOption-1).toUpperCase();
         }
         else {
             JOptionPane.showMessageDialog(null, "A opção escolhida é inválida. Retornando ao menu inicial.", "OPÇÃO INVÁLIDA", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        double totalCost = 0;
-        switch (transpOption) {
-            case 1: totalCost = distance * SMALL_TRUCK_PRICE;  break;
-            case 2: totalCost = distance * MEDIUM_TRUCK_PRICE; break;
-            case 3: totalCost = distance * LARGE_TRUCK_PRICE;  break;
-        }
+        double totalCost = distance * Core.getTruckPrice(transpOption);
 
         JOptionPane.showMessageDialog(null, String.format("De %s a %s, a distância é de %d km e, utilizando um %s, o custo será de R$ %.2f.", listOfCities[0], listOfCities[1], distance, transportation, totalCost), "RESULTADO DA CONSULTA", JOptionPane.INFORMATION_MESSAGE);
     }
@@ -187,38 +244,37 @@ public class App {
         }
 
         String seqItems = JOptionPane.showInputDialog(null, "Digite o nome do item, seu peso (em kg) e sua quantidade, separando essas informações por \"/\". Para incluir uma sequência de itens, separe-os por \"-\" (ex.: celular/0,5/2 - tablet/1,2/5).", "DIGITE OS ITENS", JOptionPane.INFORMATION_MESSAGE);
-        String[] items = seqItems.trim().toUpperCase().split("-");
-
-        Item[] itemsArray = new Item[items.length];
-        for (int i=0; i<items.length; i++) {
-            String itemName = items[i].substring(0, items[i].indexOf("/")).trim();
-            String itemWeight = items[i].substring(items[i].indexOf("/")+1, items[i].lastIndexOf("/")).trim();
-            String itemQuantity = items[i].substring(items[i].lastIndexOf("/")+1).trim();
-
-            double itemWeightD = 0.0;
-            int itemQuantityI = 0;
-            try {
-                itemWeightD = Double.parseDouble(itemWeight.replace(',', '.'));
-                itemQuantityI = Integer.parseInt(itemQuantity);
-            }
-            catch (NumberFormatException e) {
-                JOptionPane.showMessageDialog(null, "Utilize apenas valores reais para o peso do item e valores inteiros para a quantidade. Retornando ao menu inicial.", "FORMATO INVÁLIDO", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-
-            itemsArray[i] = new Item(itemName, itemWeightD, itemQuantityI);
+        Manifest manifest;
+        try {
+            manifest = ManifestParser.parse(seqItems);
+        }
+        catch (ManifestParseException e) {
+            JOptionPane.showMessageDialog(null, String.format("Utilize apenas valores reais positivos para o peso do item e valores inteiros positivos para a quantidade (erro na posição %d). Retornando ao menu inicial.", e.getPosition()+1), "FORMATO INVÁLIDO", JOptionPane.ERROR_MESSAGE);
+            return;
         }
 
-        Transportation transp = new Transportation(listOfCities, itemsArray);
-        transportations.add(transp);
+        Transportation transp;
+        try {
+            transp = new Transportation(listOfCities, manifest);
+        }
+        catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(null, "Não há caminho entre algumas das cidades do trajeto. Retornando ao menu inicial.", "SEM CAMINHO", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        Core.register(transp);
 
         int distance = transp.getDistance();
         double totalCost = transp.getTotalCost();
         double averageCost = transp.getAverageCost();
         int[] nTrucks = transp.getNTrucks();
 
+        StringBuilder trucks = new StringBuilder();
+        for (int k=0; k<nTrucks.length; k++) {
+            trucks.append(String.format("\n- %d caminhão(ões) de %s;", nTrucks[k], Core.fleet.getName(k).toLowerCase()));
+        }
+
         JOptionPane.showMessageDialog(null, 
-                                        String.format("O percurso %s terá uma distância de %d km.\nPara transportar os produtos %s, o custo será de R$ %.2f (custo unitário médio de R$ %.2f). Para isso, serão necessários:\n- %d caminhão(ões) de pequeno porte;\n- %d caminhão(ões) de médio porte;\n- %d caminhão(ões) de grande porte;", transp.getCitiesString(), distance, transp.getItemsString(), totalCost, averageCost, nTrucks[0], nTrucks[1], nTrucks[2]), 
+                                        String.format("O percurso %s terá uma distância de %d km.\nPara transportar os produtos %s, o custo será de R$ %.2f (custo unitário médio de R$ %.2f). Para isso, serão necessários:%s", transp.getCitiesString(), distance, transp.getItemsString(), totalCost, averageCost, trucks), 
                                         "RESULTADO DA SIMULAÇÃO", JOptionPane.INFORMATION_MESSAGE);
     }
 
@@ -226,19 +282,38 @@ public class App {
      * This method is invoked when the user selects option 3.
      */
     public static void executeOptionThree() {
+        long start = Metrics.start();
         StringBuilder sb = new StringBuilder();
 
-        if (transportations.size() == 0) {
+        if (Core.transportations.isEmpty()) {
             sb.append("Nenhum transporte cadastrado!");
         }
         else {
-            int i = 0;
-            for (Transportation t : transportations) {
-                i++;
-                sb.append(String.format("TRANSPORTE %d:\n", i));
-                sb.append(t.getTransportationString()+"\n\n");
+            TransportationRegistry.Statistics stats = Core.transportations.getStatistics();
+            long[] nTrucks = stats.getNTrucks();
+            sb.append(String.format("Transportes cadastrados: %d | Custo total: R$ %.2f | Distância total: %d km | Custo médio por km: R$ %.2f\n",
+                                    stats.getCount(), stats.getTotalCost(), stats.getTotalDistance(), stats.getCostPerKm()));
+            sb.append("Veículos deslocados: ");
+            for (int k=0; k<nTrucks.length; k++) {
+                if (k > 0) sb.append(k < nTrucks.length-1 ? ", " : " e ");
+                sb.append(nTrucks[k]).append(" de ").append(Core.fleet.getName(k).toLowerCase());
+            }
+            sb.append(String.format(" | Total de itens transportados: %d\n\n", stats.getItemsCount()));
+
+            StringWriter page = new StringWriter();
+            try {
+                new ReportWriter(page, ReportWriter.Format.TEXT).page(0, STATISTICS_PAGE_SIZE).write(Core.transportations);
+            }
+            catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            sb.append(page);
+
+            if (stats.getCount() > STATISTICS_PAGE_SIZE) {
+                sb.append(String.format("Exibindo os transportes 1 a %d de %d. Use \"--report <arquivo>\" para exportar todos.", STATISTICS_PAGE_SIZE, stats.getCount()));
             }
         }
+        Metrics.stop(Metrics.Stage.STATISTICS, start);
 
         JOptionPane.showMessageDialog(null, sb.toString(), "DADOS ESTATÍSTICOS", JOptionPane.INFORMATION_MESSAGE);
     }
@@ -248,32 +323,27 @@ public class App {
      */
     public static void executeOptionFour() {
         JOptionPane.showMessageDialog(null, "Obrigado! O programa será encerrado.", "ENCERRAR PROGRAMA", JOptionPane.INFORMATION_MESSAGE);
+        if (Core.journal != null) {
+            try {
+                Core.journal.close();
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
         System.exit(0);
     }
 
     /**
      * Determines whether the cities passed as parameter are in the array of cities loaded from the CSV file.
-     * @param listOfCities
-     * @return
+     * @param listOfCities the names of the cities typed by the user.
+     * @return {@code true} if all cities are valid, {@code false} otherwise.
      */
     private static boolean citiesAreValid(String[] listOfCities) {
-        boolean valid = false;
         for (String lc : listOfCities) {
-            valid = false;
-            lc = lc.trim();
-            for (String c : cities) {
-                if (lc.equals(c)) {
-                    valid = true;
-                    break;
-                }
-            }
-
-            if (!valid) {
-                valid = false;
-                break;
-            }
+            if (!Core.cityIndex.contains(lc)) return false;
         }
 
-        return valid;
+        return listOfCities.length > 0;
     }
 }
@@ -0,0 +1,176 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Quotes a file of transportation orders without any user interaction. Each line of the orders file holds one order, made up by the sequence of cities
+ * and the sequence of items, in the same formats accepted by option 2 of the menu, separated by ";" (e.g.: PORTO ALEGRE - CURITIBA;celular/0,5/2 - tablet/1,2/5).
+ * Blank lines and lines starting with "#" are ignored. The orders are read in chunks, each chunk is quoted in parallel on a fork-join pool while the results
+ * of the previous one are written, and the results are streamed, in the same order as the orders, as CSV or (if the output file ends with ".jsonl" or ".json")
+ * as JSON lines.
+ */
+public class BatchQuoter {
+    private static final int CHUNK_SIZE = 8192;
+    private static final String CSV_HEADER = "linha;percurso;distancia_km;custo_total;custo_medio;" + ReportWriter.truckColumns(Core.fleet) + "erro";
+
+    private final boolean json;
+    private final AtomicInteger errors = new AtomicInteger();
+
+    private BatchQuoter(boolean json) {
+        this.json = json;
+    }
+
+    /**
+     * Quotes all the orders in a file and writes the results to another file.
+     * @param orders the path of the file with the orders.
+     * @param output the path of the file where the results are written.
+     * @throws IOException if any of the files cannot be read or written.
+     * @throws InterruptedException if the thread is interrupted while waiting for the results.
+     */
+    public static void run(Path orders, Path output) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        String outputName = output.getFileName().toString().toLowerCase();
+        BatchQuoter quoter = new BatchQuoter(outputName.endsWith(".jsonl") || outputName.endsWith(".json"));
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(orders, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            if (!quoter.json) {
+                writer.write(CSV_HEADER);
+                writer.newLine();
+            }
+
+            int lineNumber = 0;
+            Future<String[]> pending = null;
+            while (true) {
+                ArrayList<String> lines = new ArrayList<>(CHUNK_SIZE);
+                ArrayList<Integer> lineNumbers = new ArrayList<>(CHUNK_SIZE);
+                String line;
+                while (lines.size() < CHUNK_SIZE && (line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank() || line.startsWith("#")) continue;
+                    lines.add(line);
+                    lineNumbers.add(lineNumber);
+                }
+
+                Future<String[]> next = lines.isEmpty() ? null : pool.submit(() ->
+                    IntStream.range(0, lines.size()).parallel()
+                             .mapToObj(i -> quoter.quote(lineNumbers.get(i), lines.get(i)))
+                             .toArray(String[]::new));
+
+                if (pending != null) count += write(writer, pending.get());
+                if (next == null) break;
+                pending = next;
+            }
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Failed to quote the orders.", e.getCause());
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        System.out.printf("%d pedidos processados (%d com erro) em %d ms.%n", count, quoter.errors.get(), (System.nanoTime() - start) / 1_000_000);
+        LruCache<?, ?> quotes = Core.quoteCache.getQuotes();
+        System.out.printf("Cache de cotações: %d acertos, %d falhas, %d descartes.%n", quotes.getHits(), quotes.getMisses(), quotes.getEvictions());
+    }
+
+    /**
+     * Writes the results of a chunk of orders.
+     * @param writer the writer of the output file.
+     * @param results the results to be written.
+     * @return how many results have been written.
+     * @throws IOException if the output file cannot be written.
+     */
+    private static int write(BufferedWriter writer, String[] results) throws IOException {
+        for (String result : results) {
+            writer.write(result);
+            writer.newLine();
+        }
+        return results.length;
+    }
+
+    /**
+     * Quotes a single order.
+     * @param lineNumber the number of the line of the order in the orders file.
+     * @param order the order, in the format "cities;items".
+     * @return the line with the result of the order, to be written to the output file.
+     */
+    private String quote(int lineNumber, String order) {
+        int separator = order.indexOf(';');
+        if (separator < 0) return error(lineNumber, order, "Pedido sem a lista de itens.");
+
+        String route = order.substring(0, separator).trim();
+        String[] listOfCities = route.split("-");
+        if (listOfCities.length < 2) return error(lineNumber, route, "O percurso deve ter ao menos duas cidades.");
+
+        try {
+            Transportation transp = new Transportation(listOfCities, ManifestParser.parse(order.substring(separator+1)));
+            int[] nTrucks = transp.getNTrucks();
+            StringBuilder sb = new StringBuilder(128);
+            if (json) {
+                sb.append(String.format(Locale.ROOT, "{\"linha\":%d,\"percurso\":\"%s\",\"distancia_km\":%d,\"custo_total\":%.2f,\"custo_medio\":%.2f,\"caminhoes\":[",
+                                        lineNumber, escapeJson(transp.getCitiesString()), transp.getDistance(), transp.getTotalCost(), transp.getAverageCost()));
+                for (int k=0; k<nTrucks.length; k++) {
+                    if (k > 0) sb.append(',');
+                    sb.append(nTrucks[k]);
+                }
+                return sb.append("]}").toString();
+            }
+            sb.append(String.format(Locale.ROOT, "%d;%s;%d;%.2f;%.2f;",
+                                    lineNumber, transp.getCitiesString(), transp.getDistance(), transp.getTotalCost(), transp.getAverageCost()));
+            for (int n : nTrucks) sb.append(n).append(';');
+            return sb.toString();
+        }
+        catch (IllegalArgumentException e) {
+            return error(lineNumber, route, e.getMessage() != null ? e.getMessage() : "Pedido inválido.");
+        }
+    }
+
+    /**
+     * Builds the result line of an order that could not be quoted.
+     * @param lineNumber the number of the line of the order in the orders file.
+     * @param route the route of the order, as typed in the orders file.
+     * @param message the reason why the order could not be quoted.
+     * @return the line with the error, to be written to the output file.
+     */
+    private String error(int lineNumber, String route, String message) {
+        errors.incrementAndGet();
+        if (json) return String.format("{\"linha\":%d,\"percurso\":\"%s\",\"erro\":\"%s\"}", lineNumber, escapeJson(route), escapeJson(message));
+        return String.format("%d;%s;;;;%s%s", lineNumber, route.replace(';', ','), ";".repeat(Core.fleet.size()), message.replace(';', ','));
+    }
+
+    /**
+     * Escapes a string to be written inside a JSON string.
+     * @param s the string to be escaped.
+     * @return the escaped string.
+     */
+    static String escapeJson(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (int i=0; i<s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n");  break;
+                case '\r': sb.append("\\r");  break;
+                case '\t': sb.append("\\t");  break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
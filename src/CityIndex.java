@@ -0,0 +1,93 @@
+import java.util.HashMap;
+
+/**
+ * Index of the cities loaded from the CSV file, which maps each (normalized) city name to its position in the distances matrix.
+ */
+public class CityIndex {
+    private final String[] names;
+    private final HashMap<String, Integer> indexes;
+
+    public CityIndex(String[] cities) {
+        names = new String[cities.length];
+        indexes = new HashMap<>(cities.length * 2);
+        for (int i=0; i<cities.length; i++) {
+            names[i] = normalize(cities[i]).intern();
+            indexes.put(names[i], i);
+        }
+    }
+
+    /**
+     * Tells how many cities are in this index.
+     * @return the number of cities in this index.
+     */
+    public int size() { return names.length; }
+
+    /**
+     * Tells the (normalized) name of the city with the given index.
+     * @param id the index of the city.
+     * @return the name of the city.
+     */
+    public String nameOf(int id) { return names[id]; }
+
+    /**
+     * Returns the names of all cities in this index, in the order of the distances matrix.
+     * @return a copy of the array of city names.
+     */
+    public String[] names() { return names.clone(); }
+
+    /**
+     * Tells the index of a city in the distances matrix.
+     * @param name the name of the city, which does not need to be normalized.
+     * @return the index of the city, or -1 if the city is not in this index.
+     */
+    public int indexOf(String name) {
+        Integer id = indexes.get(normalize(name));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Tells whether a city is in this index.
+     * @param name the name of the city, which does not need to be normalized.
+     * @return {@code true} if the city is in this index, {@code false} otherwise.
+     */
+    public boolean contains(String name) { return indexOf(name) >= 0; }
+
+    /**
+     * Resolves the names of the cities of a route to their indexes.
+     * @param route the names of the cities.
+     * @return the indexes of the cities, in the same order.
+     * @throws IllegalArgumentException if any of the cities is not in this index.
+     */
+    public int[] resolve(String[] route) throws IllegalArgumentException {
+        long start = Metrics.start();
+        int[] ids = new int[route.length];
+        for (int i=0; i<route.length; i++) {
+            ids[i] = indexOf(route[i]);
+            if (ids[i] < 0) throw new IllegalArgumentException("Unknown city: " + route[i]);
+        }
+        Metrics.stop(Metrics.Stage.CITY_RESOLUTION, start);
+        return ids;
+    }
+
+    /**
+     * Normalizes a city name: surrounding whitespace is removed, inner whitespace is collapsed into a single space and letters are converted to upper case.
+     * @param name the name to be normalized.
+     * @return the normalized name.
+     */
+    public static String normalize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        boolean pendingSpace = false;
+        for (int i=0; i<name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            }
+            else {
+                if (pendingSpace) sb.append(' ');
+                pendingSpace = false;
+                sb.append(Character.toUpperCase(c));
+            }
+        }
+        return sb.toString();
+    }
+}
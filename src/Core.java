@@ -0,0 +1,164 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Core of the program, shared by all its interfaces (the graphical menu of {@code App}, the batch mode, the HTTP service, the reports and the
+ * simulations): the fleet, the distances between the cities, the registry of transportations and the caches built on them. This class has no user
+ * interface, so it can be built and benchmarked without the Swing menu.
+ */
+public class Core {
+    public static final double SMALL_TRUCK_PRICE = 4.87;
+    public static final double MEDIUM_TRUCK_PRICE = 11.92;
+    public static final double LARGE_TRUCK_PRICE = 27.44;
+    public static final int MAX_WEIGHT_SMALL_TRUCK = 1000;
+    public static final int MAX_WEIGHT_MEDIUM_TRUCK = 4000;
+    public static final int MAX_WEIGHT_LARGE_TRUCK = 10000;
+
+    public static final ItemCatalog itemCatalog = new ItemCatalog();
+    public static final FleetModel fleet = FleetModel.configured();
+    public static final TruckMixTable truckMixTable = fleet.getMixTable();
+    public static final QuoteCache quoteCache = new QuoteCache(Integer.getInteger("quoteCache.quotes", QuoteCache.DEFAULT_QUOTES),
+                                                               Integer.getInteger("quoteCache.routes", QuoteCache.DEFAULT_ROUTES));
+
+    public static DistanceMatrix distances = new DistanceMatrix(0, false);
+    public static String[] cities = new String[0];
+    public static CityIndex cityIndex = new CityIndex(new String[0]);
+    public static final TransportationRegistry transportations = new TransportationRegistry();
+    public static ShortestPaths shortestPaths = null;
+    public static TransportationJournal journal = null;
+    /** Time taken to load the network of distances, from the snapshot or from the CSV file, in milliseconds. */
+    public static long loadTimeMillis = 0;
+
+    /**
+     * Loads the distances between the cities from the binary snapshot, if it is valid and up to date with the CSV file. Otherwise, the CSV file is read
+     * and a new snapshot is written from it, to be used in the next executions of the program.
+     * @param csvFile the path of the CSV file.
+     * @param snapshotFile the path of the binary snapshot.
+     */
+    public static void loadNetwork(String csvFile, String snapshotFile) {
+        quoteCache.clear();
+        long start = System.nanoTime();
+        NetworkSnapshot snapshot = NetworkSnapshot.load(Paths.get(snapshotFile), Paths.get(csvFile));
+        if (snapshot != null) {
+            cityIndex = new CityIndex(snapshot.getCities());
+            cities = cityIndex.names();
+            distances = snapshot.getDistances();
+            loadTimeMillis = (System.nanoTime() - start) / 1_000_000;
+            Metrics.stop(Metrics.Stage.NETWORK_LOAD, start);
+            return;
+        }
+
+        readCsv(csvFile);
+        try {
+            NetworkSnapshot.write(Paths.get(snapshotFile), Paths.get(csvFile), cities, distances);
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+        Metrics.stop(Metrics.Stage.NETWORK_LOAD, start);
+    }
+
+    /**
+     * Reads the CSV file containing the distances between the cities. The size of the matrix is given by the number of cities in the header of the file
+     * and, if the distances turn out to be symmetric, only the upper triangle of the matrix is kept.
+     * @param file the path of the file to be read.
+     */
+    public static void readCsv(String file) {
+        long start = Metrics.start();
+        try {
+            CsvLoader loader = CsvLoader.load(Paths.get(file));
+            cityIndex = new CityIndex(loader.getCities());
+            cities = cityIndex.names();
+            distances = loader.getDistances();
+            loadTimeMillis = loader.getLoadTimeMillis();
+            Metrics.stop(Metrics.Stage.CSV_READ, start);
+        }
+        catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Registers a transportation: adds the names of its items to the item catalog, adds it to the registry and, if the journal is open, appends it to
+     * the journal, so it is kept for the next executions. Failures to write the journal are logged; callers that must not report success before the
+     * transportation is stored should wait for the result.
+     * @param transp the transportation to be registered.
+     * @return a future that is completed once the transportation is durably stored in the journal (immediately, if there is no journal), or completed
+     * exceptionally if it cannot be stored.
+     */
+    public static CompletableFuture<Void> register(Transportation transp) {
+        transp.internNames();
+        transportations.add(transp);
+        TransportationJournal j = journal;
+        if (j == null) return CompletableFuture.completedFuture(null);
+
+        return j.append(transp).whenComplete((stored, e) -> {
+            if (e != null) {
+                System.err.println("Failed to store a transportation in the journal.");
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Opens the journal of transportations, replaying the transportations stored in it into the registry, and makes sure it is closed (writing its pending
+     * records) when the JVM shuts down, even if the program is interrupted.
+     * @param logFile the path of the journal file.
+     * @param snapshotFile the path of the snapshot file.
+     * @throws IOException if the journal cannot be opened.
+     */
+    public static void openJournal(String logFile, String snapshotFile) throws IOException {
+        TransportationJournal j = TransportationJournal.open(Paths.get(logFile), Paths.get(snapshotFile));
+        journal = j;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                j.close();
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "transportation-journal-shutdown"));
+    }
+
+    /**
+     * Tells the distance between two cities. If the shortest paths have been computed (by running the program with {@code -DshortestPaths=true}),
+     * this is the shortest distance between the cities, which may go through other cities; otherwise, it is the distance read from the CSV file.
+     * @param from the index of the origin city.
+     * @param to the index of the destination city.
+     * @return the distance from the origin to the destination city, in km, or {@code ShortestPaths.UNREACHABLE} if the shortest paths have been computed
+     * and there is no path between the cities.
+     */
+    public static int distance(int from, int to) {
+        ShortestPaths paths = shortestPaths;
+        return paths != null ? paths.distance(from, to) : distances.distance(from, to);
+    }
+
+    /**
+     * Tells the distance of a leg of a route, in the same way as {@code distance(from, to)}, but rejecting legs between cities with no path between them.
+     * @param from the index of the origin city.
+     * @param to the index of the destination city.
+     * @return the distance from the origin to the destination city, in km.
+     * @throws IllegalArgumentException if there is no path from the origin to the destination city.
+     */
+    public static int legDistance(int from, int to) throws IllegalArgumentException {
+        int d = distance(from, to);
+        if (d < 0 || d >= ShortestPaths.UNREACHABLE) {
+            throw new IllegalArgumentException("There is no path from " + cities[from] + " to " + cities[to] + ".");
+        }
+        return d;
+    }
+
+    /**
+     * Tells the price per km of a type of truck.
+     * @param truckType the type of truck, numbered from 1 in the order of the classes of the fleet (1 for small, 2 for medium and 3 for large trucks
+     * in the default fleet).
+     * @return the price per km of the type of truck.
+     * @throws IllegalArgumentException if the type of truck is invalid.
+     */
+    public static double getTruckPrice(int truckType) throws IllegalArgumentException {
+        if (truckType < 1 || truckType > fleet.size()) throw new IllegalArgumentException("Invalid truck type: " + truckType);
+        return fleet.getPrice(truckType-1);
+    }
+}
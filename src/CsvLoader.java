@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * Loads the CSV file with the distances between the cities. The file is memory-mapped and the distances are parsed straight from its bytes,
+ * without creating any intermediate strings, with the rows of the matrix split among the available processors.
+ */
+public class CsvLoader {
+    private static final int ROWS_PER_TASK = 64;
+
+    private final String[] cities;
+    private final DistanceMatrix distances;
+    private final long loadTimeMillis;
+
+    private CsvLoader(String[] cities, DistanceMatrix distances, long loadTimeMillis) {
+        this.cities = cities;
+        this.distances = distances;
+        this.loadTimeMillis = loadTimeMillis;
+    }
+
+    /**
+     * Tells the names of the cities in the header of the loaded file.
+     * @return the names of the cities, in the order of the matrix.
+     */
+    public String[] getCities() { return cities; }
+
+    /**
+     * Tells the distances read from the loaded file.
+     * @return the matrix of distances.
+     */
+    public DistanceMatrix getDistances() { return distances; }
+
+    /**
+     * Tells how long it took to load the file.
+     * @return the time taken to load the file, in milliseconds.
+     */
+    public long getLoadTimeMillis() { return loadTimeMillis; }
+
+    /**
+     * Loads a CSV file with the distances between the cities. The first line must contain the names of the cities, separated by ";",
+     * and it must be followed by one line of distances for each city, with one distance for each city.
+     * @param file the path of the file to be read.
+     * @return the loaded data.
+     * @throws IOException if the file cannot be read, is too large to be mapped, or has fewer lines of distances than cities.
+     * @throws NumberFormatException if any of the distances is missing or is not an integer.
+     */
+    public static CsvLoader load(Path file) throws IOException, NumberFormatException {
+        long start = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) throw new IOException("File too large to be mapped: " + file);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            int limit = (int) length;
+
+            int headerEnd = lineEnd(buf, 0, limit);
+            String[] cities = readHeader(buf, headerEnd);
+            int n = cities.length;
+
+            int[] rowStarts = new int[n+1];
+            int rows = 0;
+            int pos = Math.min(headerEnd + 1, limit);
+            while (rows < n && pos < limit) {
+                rowStarts[rows++] = pos;
+                pos = Math.min(lineEnd(buf, pos, limit) + 1, limit);
+            }
+            rowStarts[rows] = pos;
+            if (rows < n) throw new IOException(String.format("The file %s has %d lines of distances for %d cities.", file, rows, n));
+            final int rowCount = rows;
+
+            DistanceMatrix matrix = new DistanceMatrix(n, false);
+            int tasks = (rowCount + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+            IntStream.range(0, tasks).parallel().forEach(t -> {
+                int last = Math.min((t+1) * ROWS_PER_TASK, rowCount);
+                for (int r=t*ROWS_PER_TASK; r<last; r++) {
+                    parseRow(buf, rowStarts[r], rowStarts[r+1], r, n, matrix);
+                }
+            });
+
+            DistanceMatrix distances = matrix.isSymmetric() ? matrix.toTriangular() : matrix;
+
+            return new CsvLoader(cities, distances, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Reads the names of the cities from the header of the file.
+     * @param buf the contents of the file.
+     * @param headerEnd the position of the end of the header.
+     * @return the names of the cities.
+     */
+    private static String[] readHeader(MappedByteBuffer buf, int headerEnd) {
+        byte[] header = new byte[headerEnd];
+        buf.get(0, header);
+        String line = new String(header, StandardCharsets.UTF_8);
+        if (line.startsWith("\uFEFF")) line = line.substring(1);
+        if (line.endsWith("\r")) line = line.substring(0, line.length()-1);
+        return line.split(";");
+    }
+
+    /**
+     * Parses a row of distances and stores them in the matrix.
+     * @param buf the contents of the file.
+     * @param from the position of the first byte of the row.
+     * @param to the position right after the last byte of the row.
+     * @param row the index of the row.
+     * @param n the number of cities.
+     * @param matrix the matrix where the distances are stored.
+     * @throws NumberFormatException if any of the distances is missing or is not an integer.
+     */
+    private static void parseRow(MappedByteBuffer buf, int from, int to, int row, int n, DistanceMatrix matrix) throws NumberFormatException {
+        int pos = from;
+        for (int col=0; col<n; col++) {
+            if (pos >= to) throw new NumberFormatException(String.format("Missing distance at line %d, column %d.", row+2, col+1));
+            while (pos < to && buf.get(pos) == ' ') pos++;
+
+            boolean negative = pos < to && buf.get(pos) == '-';
+            if (negative) pos++;
+
+            int value = 0;
+            int digits = 0;
+            byte b;
+            while (pos < to && (b = buf.get(pos)) >= '0' && b <= '9') {
+                value = value*10 + (b - '0');
+                digits++;
+                pos++;
+            }
+
+            while (pos < to && (b = buf.get(pos)) != ';' && b != '\n') {
+                if (b != ' ' && b != '\r') digits = 0;
+                pos++;
+            }
+            if (digits == 0) throw new NumberFormatException(String.format("Invalid distance at line %d, column %d.", row+2, col+1));
+
+            matrix.set(row, col, negative ? -value : value);
+            pos++;
+        }
+    }
+
+    /**
+     * Finds the end of the line that starts at the given position.
+     * @param buf the contents of the file.
+     * @param from the position where the line starts.
+     * @param limit the size of the file.
+     * @return the position of the line break that ends the line, or the size of the file if it is the last line.
+     */
+    private static int lineEnd(MappedByteBuffer buf, int from, int limit) {
+        int pos = from;
+        while (pos < limit && buf.get(pos) != '\n') pos++;
+        return pos;
+    }
+}
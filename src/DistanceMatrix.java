@@ -0,0 +1,155 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Square matrix of the distances (in km) between the cities, sized at runtime and stored in a single flat array of primitive integers.
+ * When the matrix is symmetric, only its upper triangle (including the diagonal) may be stored, which halves the memory needed.
+ * Very large matrices are stored off-heap, in a direct buffer.
+ */
+public class DistanceMatrix {
+    /** Number of cells above which the matrix is stored off-heap instead of in a Java array. */
+    public static final long OFF_HEAP_THRESHOLD = 1L << 26;
+    /** Maximum number of cells of a matrix: the size of a direct buffer, in bytes, cannot exceed {@code Integer.MAX_VALUE}. */
+    public static final long MAX_CELLS = Integer.MAX_VALUE / Integer.BYTES;
+
+    private final int size;
+    private final boolean triangular;
+    private final int[] heap;
+    private final IntBuffer offHeap;
+
+    public DistanceMatrix(int size, boolean triangular) throws IllegalArgumentException {
+        if (size < 0) throw new IllegalArgumentException("Size must not be negative.");
+        long cells = cellCount(size, triangular);
+        if (cells > MAX_CELLS) throw new IllegalArgumentException("Matrix too large: " + size + " cities.");
+
+        this.size = size;
+        this.triangular = triangular;
+        if (cells > OFF_HEAP_THRESHOLD) {
+            heap = null;
+            offHeap = ByteBuffer.allocateDirect(Math.toIntExact(Math.multiplyExact(cells, Integer.BYTES))).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        else {
+            heap = new int[(int) cells];
+            offHeap = null;
+        }
+    }
+
+    /**
+     * Tells how many cities (rows and columns) this matrix has.
+     * @return the number of cities in this matrix.
+     */
+    public int size() { return size; }
+
+    /**
+     * Tells whether only the upper triangle of this matrix is stored.
+     * @return {@code true} if this matrix stores only its upper triangle, {@code false} otherwise.
+     */
+    public boolean isTriangular() { return triangular; }
+
+    /**
+     * Tells the distance between two cities.
+     * @param from the index of the origin city.
+     * @param to the index of the destination city.
+     * @return the distance from the origin to the destination city, in km.
+     */
+    public int distance(int from, int to) {
+        int idx = index(from, to);
+        return heap != null ? heap[idx] : offHeap.get(idx);
+    }
+
+    /**
+     * Sets the distance between two cities. If this matrix is triangular, the distance is set in both directions.
+     * @param from the index of the origin city.
+     * @param to the index of the destination city.
+     * @param distance the distance from the origin to the destination city, in km.
+     */
+    public void set(int from, int to, int distance) {
+        int idx = index(from, to);
+        if (heap != null) heap[idx] = distance;
+        else offHeap.put(idx, distance);
+    }
+
+    /**
+     * Tells whether the distance from every city to every other city is the same in both directions.
+     * @return {@code true} if this matrix is symmetric, {@code false} otherwise.
+     */
+    public boolean isSymmetric() {
+        if (triangular) return true;
+        for (int i=0; i<size; i++) {
+            for (int j=i+1; j<size; j++) {
+                if (distance(i, j) != distance(j, i)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a copy of this matrix that stores only its upper triangle.
+     * @return the triangular copy of this matrix.
+     * @throws IllegalStateException if this matrix is not symmetric.
+     */
+    public DistanceMatrix toTriangular() throws IllegalStateException {
+        if (triangular) return this;
+        if (!isSymmetric()) throw new IllegalStateException("Only symmetric matrices can be stored as triangular.");
+
+        DistanceMatrix copy = new DistanceMatrix(size, true);
+        for (int i=0; i<size; i++) {
+            for (int j=i; j<size; j++) {
+                copy.set(i, j, distance(i, j));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Tells how many cells are used to store this matrix.
+     * @return the number of cells in the flat storage array.
+     */
+    public int cellCount() { return (int) cellCount(size, triangular); }
+
+    /**
+     * Copies the cells of this matrix, in storage order, into a buffer.
+     * @param dst the buffer into which the cells are copied.
+     */
+    void copyTo(IntBuffer dst) {
+        if (heap != null) dst.put(heap);
+        else dst.put(offHeap.duplicate().clear());
+    }
+
+    /**
+     * Fills the cells of this matrix, in storage order, from a buffer.
+     * @param src the buffer from which the cells are copied.
+     */
+    void copyFrom(IntBuffer src) {
+        if (heap != null) src.get(heap);
+        else offHeap.duplicate().clear().put(src);
+    }
+
+    /**
+     * Tells the position of a cell in the flat storage array.
+     * @param from the row of the cell.
+     * @param to the column of the cell.
+     * @return the position of the cell in the flat storage array.
+     */
+    private int index(int from, int to) {
+        if (from < 0 || from >= size || to < 0 || to >= size)
+            throw new IndexOutOfBoundsException("City index out of range: " + from + ", " + to);
+
+        if (!triangular) return from * size + to;
+
+        int i = Math.min(from, to);
+        int j = Math.max(from, to);
+        return (int) ((long) i * (2L*size - i + 1) / 2 + (j - i));
+    }
+
+    /**
+     * Tells how many cells are needed to store a matrix.
+     * @param size the number of cities in the matrix.
+     * @param triangular whether only the upper triangle of the matrix is stored.
+     * @return the number of cells needed.
+     */
+    private static long cellCount(int size, boolean triangular) {
+        return triangular ? (long) size * (size + 1) / 2 : (long) size * size;
+    }
+}
@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Classes of vehicles available to the company: the name, the price per km and the maximum weight carried by each one. The fleet is read from a
+ * properties file, which lists the identifiers of the classes, in order, and the attributes of each class, e.g.:
+ * <pre>
+ * classes=pequenos,medios,grandes
+ * pequenos.name=Pequeno porte
+ * pequenos.price=4.87
+ * pequenos.capacity=1000
+ * ...
+ * </pre>
+ * Any number of classes may be configured. When there is no configuration, the fleet is made up by the small, medium and large trucks of {@code Core}.
+ * The identifiers of the classes name the truck columns of the CSV files written by the program.
+ */
+public class FleetModel {
+    /** Path of the configuration file read when the system property "fleet" is not set. */
+    public static final String DEFAULT_CONFIG = "frota.properties";
+
+    private static final int BULK_BLOCK = 4096;
+
+    private final String[] ids;
+    private final String[] names;
+    private final double[] prices;
+    private final int[] capacities;
+    private final TruckMixTable mixTable;
+
+    /**
+     * Creates a fleet.
+     * @param ids the identifiers of the classes of vehicles.
+     * @param names the names of the classes, as shown to the user.
+     * @param prices the price per km of each class.
+     * @param capacities the maximum weight (in kg) carried by each class.
+     * @throws IllegalArgumentException if the arrays have different lengths, if there are no classes, or if any of the prices or capacities is not positive.
+     */
+    public FleetModel(String[] ids, String[] names, double[] prices, int[] capacities) throws IllegalArgumentException {
+        if (ids.length != names.length || ids.length != prices.length || ids.length != capacities.length) {
+            throw new IllegalArgumentException("Every vehicle class must have an identifier, a name, a price and a capacity.");
+        }
+
+        this.ids = ids.clone();
+        this.names = names.clone();
+        this.prices = prices.clone();
+        this.capacities = capacities.clone();
+        this.mixTable = new TruckMixTable(this.prices, this.capacities, TruckMixTable.DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Returns the default fleet, made up by small, medium and large trucks.
+     * @return the default fleet.
+     */
+    public static FleetModel defaults() {
+        return new FleetModel(new String[] {"pequenos", "medios", "grandes"},
+                              new String[] {"Pequeno porte", "Médio porte", "Grande porte"},
+                              new double[] {Core.SMALL_TRUCK_PRICE, Core.MEDIUM_TRUCK_PRICE, Core.LARGE_TRUCK_PRICE},
+                              new int[] {Core.MAX_WEIGHT_SMALL_TRUCK, Core.MAX_WEIGHT_MEDIUM_TRUCK, Core.MAX_WEIGHT_LARGE_TRUCK});
+    }
+
+    /**
+     * Returns the fleet configured for the program: the one in the file named by the system property "fleet" or, if it is not set, in
+     * {@code DEFAULT_CONFIG}. If the file does not exist, the default fleet is returned.
+     * @return the configured fleet.
+     * @throws UncheckedIOException if the configuration file cannot be read.
+     * @throws IllegalArgumentException if the configuration is invalid.
+     */
+    public static FleetModel configured() throws UncheckedIOException, IllegalArgumentException {
+        Path config = Paths.get(System.getProperty("fleet", DEFAULT_CONFIG));
+        if (!Files.exists(config)) return defaults();
+
+        try {
+            return load(config);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the fleet configuration " + config, e);
+        }
+    }
+
+    /**
+     * Reads a fleet from a properties file.
+     * @param config the path of the file.
+     * @return the fleet.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the configuration is invalid.
+     */
+    public static FleetModel load(Path config) throws IOException, IllegalArgumentException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(config, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+
+        String[] ids = props.getProperty("classes", "").split(",");
+        int n = ids.length;
+        String[] names = new String[n];
+        double[] prices = new double[n];
+        int[] capacities = new int[n];
+        for (int k=0; k<n; k++) {
+            ids[k] = ids[k].trim();
+            if (ids[k].isEmpty()) throw new IllegalArgumentException("Missing vehicle class in " + config);
+
+            names[k] = props.getProperty(ids[k] + ".name", ids[k]).trim();
+            try {
+                prices[k] = Double.parseDouble(required(props, ids[k] + ".price"));
+                capacities[k] = Integer.parseInt(required(props, ids[k] + ".capacity"));
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid price or capacity of the vehicle class " + ids[k] + " in " + config, e);
+            }
+        }
+        return new FleetModel(ids, names, prices, capacities);
+    }
+
+    /**
+     * Returns a fleet with the same classes as this one, but with all prices multiplied by a factor, e.g. after a change in the price of fuel.
+     * @param factor the factor by which the prices are multiplied.
+     * @return the repriced fleet.
+     * @throws IllegalArgumentException if the factor is not positive.
+     */
+    public FleetModel withPriceFactor(double factor) throws IllegalArgumentException {
+        double[] factors = new double[prices.length];
+        Arrays.fill(factors, factor);
+        return withPriceFactors(factors);
+    }
+
+    /**
+     * Returns a fleet with the same classes as this one, but with the price of each class multiplied by its own factor.
+     * @param factors the factor by which the price of each class is multiplied, in the order of the fleet.
+     * @return the repriced fleet.
+     * @throws IllegalArgumentException if there is not one factor for each class, or if any of the factors is not positive.
+     */
+    public FleetModel withPriceFactors(double[] factors) throws IllegalArgumentException {
+        if (factors.length != prices.length) throw new IllegalArgumentException("There must be one price factor for each vehicle class.");
+
+        double[] newPrices = new double[prices.length];
+        for (int k=0; k<prices.length; k++) {
+            newPrices[k] = prices[k] * factors[k];
+        }
+        return new FleetModel(ids, names, newPrices, capacities);
+    }
+
+    /**
+     * Tells how many classes of vehicles are in the fleet.
+     * @return the number of classes.
+     */
+    public int size() { return ids.length; }
+
+    /**
+     * Tells the identifier of a class of vehicles.
+     * @param k the position of the class in the fleet.
+     * @return the identifier of the class.
+     */
+    public String getId(int k) { return ids[k]; }
+
+    /**
+     * Tells the position of a class of vehicles in the fleet.
+     * @param id the identifier of the class.
+     * @return the position of the class, or -1 if there is no class with the identifier.
+     */
+    public int indexOf(String id) {
+        for (int k=0; k<ids.length; k++) {
+            if (ids[k].equalsIgnoreCase(id)) return k;
+        }
+        return -1;
+    }
+
+    /**
+     * Tells the name of a class of vehicles.
+     * @param k the position of the class in the fleet.
+     * @return the name of the class, as shown to the user.
+     */
+    public String getName(int k) { return names[k]; }
+
+    /**
+     * Tells the price per km of a class of vehicles.
+     * @param k the position of the class in the fleet.
+     * @return the price per km of the class.
+     */
+    public double getPrice(int k) { return prices[k]; }
+
+    /**
+     * Tells the maximum weight carried by a class of vehicles.
+     * @param k the position of the class in the fleet.
+     * @return the capacity of the class, in kg.
+     */
+    public int getCapacity(int k) { return capacities[k]; }
+
+    /**
+     * Returns the table with the cheapest combination of vehicles of this fleet able to carry each weight.
+     * @return the table of combinations of vehicles.
+     */
+    public TruckMixTable getMixTable() { return mixTable; }
+
+    /**
+     * Tells the price per km of a combination of vehicles.
+     * @param nTrucks the number of vehicles of each class.
+     * @return the sum of the prices per km of the vehicles.
+     */
+    public double costPerKm(int[] nTrucks) {
+        double cost = 0;
+        for (int k=0; k<prices.length; k++) {
+            cost += prices[k] * nTrucks[k];
+        }
+        return cost;
+    }
+
+    /**
+     * Tells the cost of a combination of vehicles travelling a distance.
+     * @param distance the distance, in km.
+     * @param nTrucks the number of vehicles of each class.
+     * @return the total cost of the vehicles.
+     */
+    public double cost(int distance, int[] nTrucks) {
+        double cost = 0;
+        for (int k=0; k<prices.length; k++) {
+            cost += prices[k] * distance * nTrucks[k];
+        }
+        return cost;
+    }
+
+    /**
+     * Calculates the costs of a whole batch of transportations in one pass, each one carried by the cheapest combination of vehicles able to carry
+     * its weight. The batch is processed in blocks: the price per km of each weight is looked up first, and then multiplied by the distances in a
+     * separate loop that the JIT compiler can vectorize.
+     * @param distances the distance of each transportation, in km.
+     * @param weights the total weight of each transportation, in kg.
+     * @param costs the array where the cost of each transportation is stored.
+     * @param n how many transportations are in the batch.
+     * @throws IllegalArgumentException if any of the arrays is shorter than the batch.
+     */
+    public void costs(int[] distances, double[] weights, double[] costs, int n) throws IllegalArgumentException {
+        costs(distances, weights, costs, 0, n);
+    }
+
+    /**
+     * Calculates the costs of a range of a batch of transportations, in the same way as {@code costs(distances, weights, costs, n)}.
+     * @param distances the distance of each transportation, in km.
+     * @param weights the total weight of each transportation, in kg.
+     * @param costs the array where the cost of each transportation is stored.
+     * @param from the position of the first transportation of the range.
+     * @param to the position after the last transportation of the range.
+     * @throws IllegalArgumentException if the range is invalid or any of the arrays is shorter than it.
+     */
+    public void costs(int[] distances, double[] weights, double[] costs, int from, int to) throws IllegalArgumentException {
+        if (from < 0 || from > to) throw new IllegalArgumentException("Invalid range: " + from + " to " + to);
+        if (distances.length < to || weights.length < to || costs.length < to) throw new IllegalArgumentException("The arrays are shorter than the batch.");
+
+        for (int start=from; start<to; start+=BULK_BLOCK) {
+            int end = Math.min(start + BULK_BLOCK, to);
+            for (int i=start; i<end; i++) {
+                costs[i] = mixTable.costPerKm(weights[i]);
+            }
+            for (int i=start; i<end; i++) {
+                costs[i] *= distances[i];
+            }
+        }
+    }
+
+    /**
+     * Reads a property that must be set.
+     * @param props the properties.
+     * @param key the key of the property.
+     * @return the value of the property.
+     * @throws IllegalArgumentException if the property is not set.
+     */
+    private static String required(Properties props, String key) throws IllegalArgumentException {
+        String value = props.getProperty(key);
+        if (value == null) throw new IllegalArgumentException("Missing property " + key);
+        return value.trim();
+    }
+}
@@ -4,9 +4,9 @@ import java.security.InvalidParameterException;
  * Represents the items that made up a specific transportation.
  */
 public class Item {
-    private String itemName;
-    private double weight;
-    private int quantity;
+    private final String itemName;
+    private final double weight;
+    private final int quantity;
 
     public Item(String name, double weight, int quantity) throws InvalidParameterException {
         itemName = name;
@@ -0,0 +1,36 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog of the names of the items transported by the company. Each distinct name of the items of the registered transportations is stored only
+ * once, and shared by all of them. The names of quotes that are never registered (e.g. rejected requests, or batch quotes) are only looked up, so they
+ * never make the catalog grow. The catalog can be safely shared among threads.
+ */
+public class ItemCatalog {
+    private final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * Tells the shared instance of an item name, adding the name to the catalog if it is not there yet.
+     * @param name the name of the item.
+     * @return the instance of the name stored in the catalog.
+     */
+    public String intern(String name) {
+        String shared = names.putIfAbsent(name, name);
+        return shared != null ? shared : name;
+    }
+
+    /**
+     * Tells the shared instance of an item name, without adding the name to the catalog.
+     * @param name the name of the item.
+     * @return the instance of the name stored in the catalog, or the given name if it is not in the catalog.
+     */
+    public String lookup(String name) {
+        String shared = names.get(name);
+        return shared != null ? shared : name;
+    }
+
+    /**
+     * Tells how many distinct names are in the catalog.
+     * @return the number of names in the catalog.
+     */
+    public int size() { return names.size(); }
+}
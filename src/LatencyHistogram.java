@@ -0,0 +1,102 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of latencies, in nanoseconds, in the style of HdrHistogram: each power of two is split into a fixed number of linear
+ * sub-buckets, so any value is counted in a bucket at most 12.5% wider than the value itself, whatever its magnitude. Recording a value only
+ * increments counters in preallocated arrays, without allocating memory or taking locks.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     * @param nanos the latency, in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Tells how many latencies have been recorded.
+     * @return the number of latencies.
+     */
+    public long getCount() { return count.sum(); }
+
+    /**
+     * Tells the sum of all latencies recorded.
+     * @return the sum of the latencies, in nanoseconds.
+     */
+    public long getSum() { return sum.sum(); }
+
+    /**
+     * Tells the largest latency recorded.
+     * @return the largest latency, in nanoseconds, or 0 if no latency has been recorded.
+     */
+    public long getMax() { return max.get(); }
+
+    /**
+     * Tells a percentile of the latencies recorded. The result is the upper bound of the bucket that holds the percentile, so it overestimates the
+     * exact percentile by at most 12.5%, and never exceeds the largest latency recorded.
+     * @param p the percentile, between 0 and 1.
+     * @return the latency of the percentile, in nanoseconds, or 0 if no latency has been recorded.
+     */
+    public long getPercentile(double p) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int b=0; b<BUCKETS; b++) {
+            snapshot[b] = counts.get(b);
+            total += snapshot[b];
+        }
+        if (total == 0) return 0;
+
+        long rank = Math.max((long) Math.ceil(p * total), 1);
+        long seen = 0;
+        for (int b=0; b<BUCKETS; b++) {
+            seen += snapshot[b];
+            if (seen >= rank) return Math.min(upperBoundOf(b), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Tells the bucket of a value.
+     * @param value the value, not negative.
+     * @return the index of the bucket.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS-1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Tells the largest value counted in a bucket.
+     * @param bucket the index of the bucket.
+     * @return the upper bound of the bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + sub) * width) + width - 1;
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache with a bounded number of entries, which evicts the least recently used entries when it is full. The entries are spread over
+ * independent shards, each one an access-ordered map guarded by its own lock, so concurrent threads rarely contend for the same lock. Values are computed
+ * outside the locks: two threads missing the same key at the same time may both compute its value, which is harmless as long as the values are
+ * deterministic. The hits, misses and evictions are counted on striped counters.
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public class LruCache<K, V> {
+    private static final int MAX_SHARDS = 16;
+
+    private final Shard<K, V>[] shards;
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Access-ordered map holding part of the entries of the cache.
+     */
+    private static class Shard<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final transient LongAdder evictions;
+
+        Shard(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+
+    /**
+     * Creates an empty cache.
+     * @param capacity the maximum number of entries in the cache. If it is 0, nothing is cached and every value is computed on demand.
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LruCache(int capacity) throws IllegalArgumentException {
+        if (capacity < 0) throw new IllegalArgumentException("The capacity must not be negative.");
+
+        this.capacity = capacity;
+        int n = 1;
+        while (n < MAX_SHARDS && n * 2 <= capacity) n *= 2;
+        shards = new Shard[n];
+        for (int s=0; s<n; s++) {
+            shards[s] = new Shard<>(capacity / n + (s < capacity % n ? 1 : 0), evictions);
+        }
+    }
+
+    /**
+     * Returns the value of a key, computing and caching it if it is not in the cache.
+     * @param key the key.
+     * @param loader the function that computes the value of the key.
+     * @return the value of the key.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        if (capacity == 0) {
+            misses.increment();
+            return loader.apply(key);
+        }
+
+        Shard<K, V> shard = shardOf(key);
+        V value;
+        synchronized (shard) {
+            value = shard.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        misses.increment();
+        value = loader.apply(key);
+        synchronized (shard) {
+            V previous = shard.putIfAbsent(key, value);
+            return previous != null ? previous : value;
+        }
+    }
+
+    /**
+     * Removes all entries from the cache. The counters are not reset.
+     */
+    public void clear() {
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                shard.clear();
+            }
+        }
+    }
+
+    /**
+     * Tells the maximum number of entries in the cache.
+     * @return the capacity of the cache.
+     */
+    public int getCapacity() { return capacity; }
+
+    /**
+     * Tells how many entries are in the cache.
+     * @return the number of entries in the cache.
+     */
+    public int size() {
+        int size = 0;
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Tells how many lookups have found their key in the cache.
+     * @return the number of hits.
+     */
+    public long getHits() { return hits.sum(); }
+
+    /**
+     * Tells how many lookups have not found their key in the cache and had to compute its value.
+     * @return the number of misses.
+     */
+    public long getMisses() { return misses.sum(); }
+
+    /**
+     * Tells how many entries have been evicted from the cache to make room for new ones.
+     * @return the number of evictions.
+     */
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * Returns the shard in which a key is kept.
+     * @param key the key.
+     * @return the shard of the key.
+     */
+    private Shard<K, V> shardOf(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return shards[h & (shards.length-1)];
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Items of a transportation as parsed from a manifest, stored as parallel arrays of primitive values.
+ */
+public class Manifest {
+    private final String[] names;
+    private final double[] weights;
+    private final int[] quantities;
+    private final int size;
+
+    Manifest(String[] names, double[] weights, int[] quantities, int size) {
+        this.names = names;
+        this.weights = weights;
+        this.quantities = quantities;
+        this.size = size;
+    }
+
+    /**
+     * Tells how many items are in this manifest.
+     * @return the number of items in this manifest.
+     */
+    public int size() { return size; }
+
+    /**
+     * Tells the name of an item.
+     * @param i the position of the item in the manifest.
+     * @return the name of the item.
+     */
+    public String getName(int i) { return names[i]; }
+
+    /**
+     * Tells the weight of an item.
+     * @param i the position of the item in the manifest.
+     * @return the weight of the item, in kg.
+     */
+    public double getWeight(int i) { return weights[i]; }
+
+    /**
+     * Tells the quantity of an item.
+     * @param i the position of the item in the manifest.
+     * @return how many of the item are in the manifest.
+     */
+    public int getQuantity(int i) { return quantities[i]; }
+
+    /**
+     * Converts the items of this manifest into instances of the {@code Item} class.
+     * @return the items of this manifest.
+     */
+    public Item[] toItems() {
+        Item[] items = new Item[size];
+        for (int i=0; i<size; i++) {
+            items[i] = new Item(names[i], weights[i], quantities[i]);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * Thrown when a manifest of items is not in the expected format. It tells the position, in the manifest, where the problem was found.
+ */
+public class ManifestParseException extends NumberFormatException {
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public ManifestParseException(String message, int position) {
+        super(message + " (position " + (position+1) + ")");
+        this.position = position;
+    }
+
+    /**
+     * Tells where the problem was found.
+     * @return the position (starting at 0) of the character of the manifest where the problem was found.
+     */
+    public int getPosition() { return position; }
+}
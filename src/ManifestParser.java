@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Parser of manifests of items, in the format "name/weight/quantity", with the items separated by "-" (e.g.: celular/0,5/2 - tablet/1,2/5).
+ * The manifest is parsed in a single pass over its characters: the weights, which may use either "," or "." as the decimal separator, and the
+ * quantities are read straight into arrays of primitive values, without any intermediate strings. Since a "-" only separates items when it comes
+ * after a quantity, the names of the items may contain "-".
+ */
+public class ManifestParser {
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18};
+
+    private final CharSequence text;
+    private final int end;
+    private int pos;
+
+    private String[] names = new String[8];
+    private double[] weights = new double[8];
+    private int[] quantities = new int[8];
+    private int size = 0;
+
+    private ManifestParser(CharSequence text) {
+        this.text = text;
+        this.end = text.length();
+    }
+
+    /**
+     * Parses a manifest. The names of the items are converted to upper case.
+     * @param text the manifest.
+     * @return the parsed items.
+     * @throws ManifestParseException if the manifest is not in the expected format.
+     */
+    public static Manifest parse(CharSequence text) throws ManifestParseException {
+        ManifestParser parser = new ManifestParser(text);
+        parser.parseItems();
+        return new Manifest(parser.names, parser.weights, parser.quantities, parser.size);
+    }
+
+    /**
+     * Parses all the items of the manifest.
+     * @throws ManifestParseException if the manifest is not in the expected format.
+     */
+    private void parseItems() throws ManifestParseException {
+        skipSpaces();
+        if (pos == end) throw new ManifestParseException("Empty manifest.", pos);
+
+        while (true) {
+            String name = parseName();
+            double weight = parseWeight();
+            expect('/');
+            int quantity = parseQuantity();
+            add(name, weight, quantity);
+
+            skipSpaces();
+            if (pos == end) return;
+            expect('-');
+        }
+    }
+
+    /**
+     * Parses the name of an item, up to the "/" that follows it, which is consumed.
+     * @return the name of the item, in upper case and without surrounding spaces.
+     * @throws ManifestParseException if there is no "/" after the name.
+     */
+    private String parseName() throws ManifestParseException {
+        skipSpaces();
+        int start = pos;
+        while (pos < end && text.charAt(pos) != '/') pos++;
+        if (pos == end) throw new ManifestParseException("Missing \"/\" after the name of the item.", start);
+
+        int last = pos;
+        while (last > start && Character.isWhitespace(text.charAt(last-1))) last--;
+        pos++;
+        return text.subSequence(start, last).toString().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Parses the weight of an item, which may have either "," or "." as the decimal separator.
+     * @return the weight of the item.
+     * @throws ManifestParseException if the weight is not a positive real number.
+     */
+    private double parseWeight() throws ManifestParseException {
+        skipSpaces();
+        int start = pos;
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        while (pos < end) {
+            char c = text.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa*10 + (c - '0');
+                digits++;
+                if (scale >= 0) scale++;
+            }
+            else if ((c == ',' || c == '.') && scale < 0) scale = 0;
+            else break;
+            pos++;
+        }
+        if (digits == 0) throw new ManifestParseException("The weight of the item must be a real number.", start);
+
+        double weight;
+        if (digits <= 18) weight = mantissa / POWERS_OF_TEN[Math.max(scale, 0)];
+        else weight = Double.parseDouble(text.subSequence(start, pos).toString().replace(',', '.'));
+        if (weight <= 0) throw new ManifestParseException("The weight of the item must be positive.", start);
+
+        skipSpaces();
+        return weight;
+    }
+
+    /**
+     * Parses the quantity of an item.
+     * @return the quantity of the item.
+     * @throws ManifestParseException if the quantity is not a positive integer.
+     */
+    private int parseQuantity() throws ManifestParseException {
+        skipSpaces();
+        int start = pos;
+        long quantity = 0;
+        while (pos < end) {
+            char c = text.charAt(pos);
+            if (c < '0' || c > '9') break;
+            quantity = quantity*10 + (c - '0');
+            if (quantity > Integer.MAX_VALUE) throw new ManifestParseException("The quantity of the item is too large.", start);
+            pos++;
+        }
+        if (pos == start) throw new ManifestParseException("The quantity of the item must be an integer.", start);
+        if (quantity == 0) throw new ManifestParseException("The quantity of the item must be positive.", start);
+        return (int) quantity;
+    }
+
+    /**
+     * Consumes an expected character.
+     * @param c the expected character.
+     * @throws ManifestParseException if the next character is not the expected one.
+     */
+    private void expect(char c) throws ManifestParseException {
+        if (pos == end || text.charAt(pos) != c) throw new ManifestParseException("Expected \"" + c + "\".", pos);
+        pos++;
+    }
+
+    /**
+     * Skips any whitespace characters.
+     */
+    private void skipSpaces() {
+        while (pos < end && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    /**
+     * Adds an item to the arrays, growing them if needed.
+     * @param name the name of the item.
+     * @param weight the weight of the item.
+     * @param quantity the quantity of the item.
+     */
+    private void add(String name, double weight, int quantity) {
+        if (size == names.length) {
+            int capacity = size * 2;
+            names = Arrays.copyOf(names, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+        names[size] = name;
+        weights[size] = weight;
+        quantities[size] = quantity;
+        size++;
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * Metrics of the hot paths of the program: a latency histogram for each stage of the work (loading the network, resolving cities, quoting and
+ * costing transportations, rendering reports), together with the counters of {@code Core.quoteCache} and the time taken to load the network. The metrics are collected only when the program
+ * runs with {@code -Dmetrics=true}; since the flag is a constant, the JIT compiler removes the instrumentation altogether when it is off, so it can be
+ * left in place in production. Quotes slower than {@code -Dmetrics.slowQuoteMillis} (10 ms by default) are also emitted as {@code SlowQuoteEvent}s to
+ * Java Flight Recorder. The stages are instrumented in the following way:
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.stop(Metrics.Stage.COSTING, start);
+ * </pre>
+ */
+public final class Metrics {
+    /** Tells whether the metrics are collected. */
+    public static final boolean ENABLED = Boolean.getBoolean("metrics");
+    /** Latency above which a quote is emitted as a {@code SlowQuoteEvent}, in nanoseconds. */
+    public static final long SLOW_QUOTE_NANOS = Long.getLong("metrics.slowQuoteMillis", 10) * 1_000_000;
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Stages of the work whose latencies are measured.
+     */
+    public enum Stage {
+        /** Loading of the distances, from the snapshot or from the CSV file. */
+        NETWORK_LOAD("network_load"),
+        /** Parsing of the CSV file of distances. */
+        CSV_READ("csv_read"),
+        /** Resolution of the names of the cities of a route to their indexes. */
+        CITY_RESOLUTION("city_resolution"),
+        /** Quote of a transportation requested by a user, from the resolution of its cities to its costs; replays and re-routings are not counted. */
+        QUOTE("quote"),
+        /** Calculation of the distances of a route missing from the quote cache. */
+        ROUTE_DISTANCES("route_distances"),
+        /** Calculation of the trucks and costs of a quote missing from the quote cache. */
+        COSTING("costing"),
+        /** Rendering of a report of the registered transportations. */
+        REPORT("report"),
+        /** Calculation and display of the statistics, in option 3 of the menu. */
+        STATISTICS("statistics");
+
+        private final String metricName;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+
+        /**
+         * Returns the name of the stage in the metrics.
+         * @return the name of the stage.
+         */
+        public String getMetricName() { return metricName; }
+
+        /**
+         * Returns the histogram of the latencies of the stage.
+         * @return the histogram of the stage.
+         */
+        public LatencyHistogram getHistogram() { return histogram; }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Marks the start of a stage.
+     * @return the current time, in nanoseconds, or 0 if the metrics are not collected.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Marks the end of a stage, recording its latency.
+     * @param stage the stage.
+     * @param start the time returned by {@code start()} at the start of the stage.
+     * @return the latency of the stage, in nanoseconds, or 0 if the metrics are not collected.
+     */
+    public static long stop(Stage stage, long start) {
+        if (!ENABLED) return 0;
+        long elapsed = System.nanoTime() - start;
+        stage.histogram.record(elapsed);
+        return elapsed;
+    }
+
+    /**
+     * Marks the end of the quote of a transportation requested by a user, recording its latency and, if it was slow, emitting a {@code SlowQuoteEvent}.
+     * @param transp the transportation created.
+     * @param start the time returned by {@code start()} when the quote was requested, before the cities of the transportation were resolved.
+     */
+    public static void quoted(Transportation transp, long start) {
+        if (!ENABLED) return;
+        long elapsed = stop(Stage.QUOTE, start);
+        if (elapsed >= SLOW_QUOTE_NANOS) SlowQuoteEvent.emit(transp, elapsed);
+    }
+
+    /**
+     * Writes the metrics in the text format of Prometheus: a summary (with quantiles, sum and count) and the maximum of the latencies of each stage,
+     * in seconds, the counters of the quote cache, and the time taken to load the network of distances, in seconds.
+     * @param out where the metrics are written.
+     * @throws UncheckedIOException if the metrics cannot be written.
+     */
+    public static void write(Appendable out) throws UncheckedIOException {
+        try {
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram h = stage.histogram;
+                String name = "transportes_" + stage.metricName + "_seconds";
+                out.append("# TYPE ").append(name).append(" summary\n");
+                for (double q : QUANTILES) {
+                    out.append(name).append("{quantile=\"").append(Double.toString(q)).append("\"} ").append(seconds(h.getPercentile(q))).append('\n');
+                }
+                out.append(name).append("_sum ").append(seconds(h.getSum())).append('\n');
+                out.append(name).append("_count ").append(Long.toString(h.getCount())).append('\n');
+                out.append("# TYPE ").append(name).append("_max gauge\n");
+                out.append(name).append("_max ").append(seconds(h.getMax())).append('\n');
+            }
+
+            writeCache(out, "quotes", Core.quoteCache.getQuotes());
+            writeCache(out, "routes", Core.quoteCache.getRoutes());
+
+            out.append("# TYPE transportes_network_load_time_seconds gauge\n");
+            out.append("transportes_network_load_time_seconds ").append(seconds(Core.loadTimeMillis * 1_000_000)).append('\n');
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the metrics in the text format of Prometheus.
+     * @return the metrics.
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder(4096);
+        write(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Writes the counters of one of the caches of {@code Core.quoteCache}.
+     * @param out where the counters are written.
+     * @param cacheName the name of the cache in the metrics.
+     * @param cache the cache.
+     * @throws IOException if the counters cannot be written.
+     */
+    private static void writeCache(Appendable out, String cacheName, LruCache<?, ?> cache) throws IOException {
+        String prefix = "transportes_cache_" + cacheName;
+        out.append("# TYPE ").append(prefix).append("_hits_total counter\n");
+        out.append(prefix).append("_hits_total ").append(Long.toString(cache.getHits())).append('\n');
+        out.append("# TYPE ").append(prefix).append("_misses_total counter\n");
+        out.append(prefix).append("_misses_total ").append(Long.toString(cache.getMisses())).append('\n');
+        out.append("# TYPE ").append(prefix).append("_evictions_total counter\n");
+        out.append(prefix).append("_evictions_total ").append(Long.toString(cache.getEvictions())).append('\n');
+        out.append("# TYPE ").append(prefix).append("_size gauge\n");
+        out.append(prefix).append("_size ").append(Integer.toString(cache.size())).append('\n');
+    }
+
+    /**
+     * Formats a latency in seconds.
+     * @param nanos the latency, in nanoseconds.
+     * @return the latency in seconds, with a dot as decimal separator.
+     */
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,128 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the distances network, which is written once from the CSV file and memory-mapped on the next executions of the program.
+ * The snapshot is made up by a header (magic number, version, size and modification time of the CSV file it was built from, and the names of the cities),
+ * followed by the raw cells of the distances matrix and by a CRC-32 checksum of everything before it.
+ */
+public class NetworkSnapshot {
+    private static final int MAGIC = 0x444E4954;
+    private static final int VERSION = 1;
+
+    private final String[] cities;
+    private final DistanceMatrix distances;
+
+    private NetworkSnapshot(String[] cities, DistanceMatrix distances) {
+        this.cities = cities;
+        this.distances = distances;
+    }
+
+    /**
+     * Tells the names of the cities stored in the snapshot.
+     * @return the names of the cities, in the order of the matrix.
+     */
+    public String[] getCities() { return cities; }
+
+    /**
+     * Tells the distances stored in the snapshot.
+     * @return the matrix of distances.
+     */
+    public DistanceMatrix getDistances() { return distances; }
+
+    /**
+     * Writes a snapshot of the network. The snapshot is first written to a temporary file, which then replaces the previous snapshot, if any.
+     * @param snapshot the path of the snapshot file.
+     * @param csv the path of the CSV file from which the network was loaded.
+     * @param cities the names of the cities, in the order of the matrix.
+     * @param distances the matrix of distances.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public static void write(Path snapshot, Path csv, String[] cities, DistanceMatrix distances) throws IOException {
+        byte[][] names = new byte[cities.length][];
+        int headerSize = 5*Integer.BYTES + 2*Long.BYTES + 1;
+        for (int i=0; i<cities.length; i++) {
+            names[i] = cities[i].getBytes(StandardCharsets.UTF_8);
+            headerSize += Integer.BYTES + names[i].length;
+        }
+        long length = (long) headerSize + (long) distances.cellCount()*Integer.BYTES + Long.BYTES;
+        if (length > Integer.MAX_VALUE) throw new IOException("Network too large for a snapshot.");
+
+        ByteBuffer buf = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION);
+        buf.putLong(Files.size(csv)).putLong(Files.getLastModifiedTime(csv).toMillis());
+        buf.putInt(distances.size()).put((byte) (distances.isTriangular() ? 1 : 0));
+        buf.putInt(cities.length);
+        for (byte[] name : names) {
+            buf.putInt(name.length).put(name);
+        }
+        buf.putInt(distances.cellCount());
+        distances.copyTo(buf.asIntBuffer());
+        buf.position(buf.position() + distances.cellCount()*Integer.BYTES);
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putLong(crc.getValue());
+        buf.flip();
+
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining()) channel.write(buf);
+            channel.force(true);
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot of the network, provided it is valid and up to date with the CSV file it was built from.
+     * @param snapshot the path of the snapshot file.
+     * @param csv the path of the CSV file from which the snapshot was built.
+     * @return the loaded snapshot, or {@code null} if the snapshot does not exist, is corrupted, or is older than the CSV file.
+     */
+    public static NetworkSnapshot load(Path snapshot, Path csv) {
+        if (!Files.isRegularFile(snapshot) || !Files.isRegularFile(csv)) return null;
+
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE || length < 5*Integer.BYTES + 3*Long.BYTES + 1) return null;
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            ByteBuffer buf = mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            int end = (int) length - Long.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate().limit(end));
+            if (crc.getValue() != buf.getLong(end)) return null;
+
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+            if (buf.getLong() != Files.size(csv) || buf.getLong() != Files.getLastModifiedTime(csv).toMillis()) return null;
+
+            int size = buf.getInt();
+            boolean triangular = buf.get() == 1;
+            String[] cities = new String[buf.getInt()];
+            if (cities.length != size) return null;
+            for (int i=0; i<cities.length; i++) {
+                byte[] name = new byte[buf.getInt()];
+                buf.get(name);
+                cities[i] = new String(name, StandardCharsets.UTF_8);
+            }
+
+            DistanceMatrix distances = new DistanceMatrix(size, triangular);
+            if (buf.getInt() != distances.cellCount()) return null;
+            distances.copyFrom(buf.asIntBuffer().limit(distances.cellCount()));
+
+            return new NetworkSnapshot(cities, distances);
+        }
+        catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import java.util.Arrays;
+
+/**
+ * Cache of the costs of transportations. The cost of a transportation depends only on its route and on the weight bucket of its items (which decides the
+ * trucks used), so quotes are cached by the sequence of indexes of the cities of the route together with the weight bucket. The distances of each route
+ * are cached separately, so that quotes of the same route with different weights share them. Both caches are bounded and evict the least recently used
+ * entries. Cached arrays are shared by all transportations that use them and must never be modified.
+ */
+public class QuoteCache {
+    /** Default maximum number of quotes in the cache. */
+    public static final int DEFAULT_QUOTES = 1 << 16;
+    /** Default maximum number of routes in the cache. */
+    public static final int DEFAULT_ROUTES = 1 << 14;
+
+    /**
+     * Distances of a route.
+     */
+    public static final class Route {
+        final int[] legs;
+        final int distance;
+
+        private Route(int[] legs, int distance) {
+            this.legs = legs;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Cost of transporting a load of a given weight bucket along a route.
+     */
+    public static final class Quote {
+        final Route route;
+        final int[] nTrucks;
+        final double costPerKm;
+        final double[] legCosts;
+        final double totalCost;
+
+        private Quote(Route route, int[] nTrucks, double costPerKm, double[] legCosts, double totalCost) {
+            this.route = route;
+            this.nTrucks = nTrucks;
+            this.costPerKm = costPerKm;
+            this.legCosts = legCosts;
+            this.totalCost = totalCost;
+        }
+    }
+
+    /**
+     * Key of the route cache: the indexes of the cities of a route, with their hash code computed once.
+     */
+    private static final class RouteKey {
+        private final int[] cities;
+        private final int hash;
+
+        RouteKey(int[] cities) {
+            this.cities = cities;
+            this.hash = Arrays.hashCode(cities);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RouteKey && ((RouteKey) o).hash == hash && Arrays.equals(((RouteKey) o).cities, cities);
+        }
+    }
+
+    /**
+     * Key of the quote cache: a route and a weight bucket.
+     */
+    private static final class QuoteKey {
+        private final RouteKey route;
+        private final long bucket;
+
+        QuoteKey(RouteKey route, long bucket) {
+            this.route = route;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public int hashCode() { return route.hash * 31 + Long.hashCode(bucket); }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof QuoteKey && ((QuoteKey) o).bucket == bucket && ((QuoteKey) o).route.equals(route);
+        }
+    }
+
+    private final LruCache<QuoteKey, Quote> quotes;
+    private final LruCache<RouteKey, Route> routes;
+
+    /**
+     * Creates an empty cache.
+     * @param maxQuotes the maximum number of quotes in the cache, or 0 to not cache quotes.
+     * @param maxRoutes the maximum number of routes in the cache, or 0 to not cache routes.
+     */
+    public QuoteCache(int maxQuotes, int maxRoutes) {
+        this.quotes = new LruCache<>(maxQuotes);
+        this.routes = new LruCache<>(maxRoutes);
+    }
+
+    /**
+     * Returns the cost of transporting a load along a route.
+     * @param cities the indexes of the cities of the route. The array is kept by the cache and must not be modified afterwards.
+     * @param weight the total weight of the load, in kg.
+     * @return the cost of the transportation.
+     * @throws IllegalArgumentException if there is no path between the cities of a leg of the route.
+     */
+    public Quote quote(int[] cities, double weight) throws IllegalArgumentException {
+        RouteKey routeKey = new RouteKey(cities);
+        long bucket = Core.truckMixTable.bucketOf(weight);
+        return quotes.get(new QuoteKey(routeKey, bucket), key -> price(routes.get(routeKey, QuoteCache::measure), weight));
+    }
+
+    /**
+     * Removes all quotes and routes from the cache. Must be called whenever the distances between the cities change.
+     */
+    public void clear() {
+        quotes.clear();
+        routes.clear();
+    }
+
+    /**
+     * Returns the cache of quotes, to read its counters.
+     * @return the cache of quotes.
+     */
+    public LruCache<?, ?> getQuotes() { return quotes; }
+
+    /**
+     * Returns the cache of routes, to read its counters.
+     * @return the cache of routes.
+     */
+    public LruCache<?, ?> getRoutes() { return routes; }
+
+    /**
+     * Calculates the distances of a route.
+     * @param key the route.
+     * @return the distance of each leg and the total distance of the route.
+     * @throws IllegalArgumentException if there is no path between the cities of a leg, or if the total distance is too large.
+     */
+    private static Route measure(RouteKey key) throws IllegalArgumentException {
+        long start = Metrics.start();
+        int[] cities = key.cities;
+        int[] legs = new int[Math.max(cities.length-1, 0)];
+        long distance = 0;
+        for (int i=0; i<legs.length; i++) {
+            legs[i] = Core.legDistance(cities[i], cities[i+1]);
+            distance += legs[i];
+        }
+        if (distance > Integer.MAX_VALUE) throw new IllegalArgumentException("Route too long: " + distance + " km.");
+        Metrics.stop(Metrics.Stage.ROUTE_DISTANCES, start);
+        return new Route(legs, (int) distance);
+    }
+
+    /**
+     * Calculates the cost of transporting a load along a route.
+     * @param route the distances of the route.
+     * @param weight the total weight of the load, in kg.
+     * @return the cost of the transportation.
+     */
+    private static Quote price(Route route, double weight) {
+        long start = Metrics.start();
+        int[] nTrucks = Core.truckMixTable.mix(weight);
+        double costPerKm = Core.fleet.costPerKm(nTrucks);
+        double[] legCosts = new double[route.legs.length];
+        for (int i=0; i<legCosts.length; i++) {
+            legCosts[i] = route.legs[i] * costPerKm;
+        }
+        Quote quote = new Quote(route, nTrucks, costPerKm, legCosts, Core.fleet.cost(route.distance, nTrucks));
+        Metrics.stop(Metrics.Stage.COSTING, start);
+        return quote;
+    }
+}
@@ -0,0 +1,286 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP service that exposes the quotes of options 1 and 2 of the menu as JSON endpoints, on the HTTP server built into the JDK:
+ * <ul>
+ *   <li>{@code GET /trecho?origem=...&destino=...&modalidade=1..n}: cost of a leg using a single class of vehicle of the fleet (option 1);</li>
+ *   <li>{@code POST /transporte} with the form fields {@code percurso} and {@code itens}: quotes and registers a transportation (option 2), responding
+ *       only once it is durably stored in the journal. Bodies larger than {@code MAX_BODY_BYTES} are refused with status 413. With {@code otimizar=true} (and, optionally, {@code orcamento_ms}, up to
+ *       {@code RouteOptimizer.MAX_TIME_BUDGET_MILLIS}), the quote of the route reordered by {@code RouteOptimizer} is also returned. At most
+ *       {@code MAX_OPTIMIZATIONS} optimizations run at the same time; beyond that, the request is refused with status 503 and is not registered.</li>
+ *   <li>{@code GET /metrics}: the {@code Metrics} of the program, in the text format of Prometheus. The latencies are only collected when the program
+ *       runs with {@code -Dmetrics=true}, but the counters of the quote cache are always available.</li>
+ * </ul>
+ * Each request is handled on its own virtual thread when the JVM supports them, or on a cached thread pool otherwise. The distances network is
+ * shared, read-only, by all requests.
+ */
+public class QuoteServer {
+    public static final int DEFAULT_PORT = 8080;
+    /** Largest number of route optimizations run at the same time, set by the system property "quoteServer.optimizations" (2 by default). */
+    public static final int MAX_OPTIMIZATIONS = Math.max(Integer.getInteger("quoteServer.optimizations", 2), 1);
+
+    /** Largest body of a request accepted by the service, in bytes. */
+    public static final int MAX_BODY_BYTES = 1 << 20;
+
+    private static final Semaphore OPTIMIZATIONS = new Semaphore(MAX_OPTIMIZATIONS);
+
+    private static final String MALFORMED_PARAMS = "Os parâmetros da requisição estão mal codificados.";
+
+    /**
+     * Starts the service.
+     * @param port the port on which the service listens.
+     * @return the started server.
+     * @throws IOException if the server cannot be bound to the port.
+     */
+    public static HttpServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/trecho", QuoteServer::handleLeg);
+        server.createContext("/transporte", QuoteServer::handleTransportation);
+        server.createContext("/metrics", QuoteServer::handleMetrics);
+        server.setExecutor(newExecutor());
+        server.start();
+        return server;
+    }
+
+    /**
+     * Creates the executor that handles the requests: one virtual thread per request if the JVM supports them, or a cached thread pool otherwise.
+     * @return the executor of the requests.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Handles the requests for the cost of a leg.
+     * @param exchange the request and its response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void handleLeg(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            send(exchange, 405, error("Método não permitido."));
+            return;
+        }
+
+        Map<String, String> params;
+        try {
+            params = parseParams(exchange.getRequestURI().getRawQuery());
+        }
+        catch (IllegalArgumentException e) {
+            send(exchange, 400, error(MALFORMED_PARAMS));
+            return;
+        }
+        String origin = params.getOrDefault("origem", "");
+        String destination = params.getOrDefault("destino", "");
+        int from = Core.cityIndex.indexOf(origin);
+        int to = Core.cityIndex.indexOf(destination);
+        if (from < 0 || to < 0) {
+            send(exchange, 400, error("As cidades informadas não constam no sistema."));
+            return;
+        }
+
+        int truckType;
+        double price;
+        try {
+            truckType = Integer.parseInt(params.getOrDefault("modalidade", "").trim());
+            price = Core.getTruckPrice(truckType);
+        }
+        catch (IllegalArgumentException e) {
+            send(exchange, 400, error(String.format("A modalidade deve ser um número de 1 a %d.", Core.fleet.size())));
+            return;
+        }
+
+        int distance;
+        try {
+            distance = Core.legDistance(from, to);
+        }
+        catch (IllegalArgumentException e) {
+            send(exchange, 400, error("Não há caminho entre as cidades informadas."));
+            return;
+        }
+        send(exchange, 200, String.format(Locale.ROOT, "{\"origem\":\"%s\",\"destino\":\"%s\",\"distancia_km\":%d,\"modalidade\":%d,\"custo\":%.2f}",
+                                          BatchQuoter.escapeJson(Core.cityIndex.nameOf(from)), BatchQuoter.escapeJson(Core.cityIndex.nameOf(to)),
+                                          distance, truckType, distance * price));
+    }
+
+    /**
+     * Handles the requests for quoting and registering a transportation.
+     * @param exchange the request and its response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void handleTransportation(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            send(exchange, 405, error("Método não permitido."));
+            return;
+        }
+
+        Map<String, String> params;
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] raw = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (raw.length > MAX_BODY_BYTES) {
+                send(exchange, 413, error(String.format("O corpo da requisição deve ter no máximo %d bytes.", MAX_BODY_BYTES)));
+                return;
+            }
+            params = parseParams(new String(raw, StandardCharsets.UTF_8));
+            params.putAll(parseParams(exchange.getRequestURI().getRawQuery()));
+        }
+        catch (IllegalArgumentException e) {
+            send(exchange, 400, error(MALFORMED_PARAMS));
+            return;
+        }
+
+        String[] listOfCities = params.getOrDefault("percurso", "").split("-");
+        if (listOfCities.length < 2) {
+            send(exchange, 400, error("O percurso deve ter ao menos duas cidades."));
+            return;
+        }
+
+        Transportation transp;
+        try {
+            transp = new Transportation(listOfCities, ManifestParser.parse(params.getOrDefault("itens", "")));
+        }
+        catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage() != null ? e.getMessage() : "Transporte inválido."));
+            return;
+        }
+
+        int[] nTrucks = transp.getNTrucks();
+        StringBuilder body = new StringBuilder();
+        body.append(String.format(Locale.ROOT, "{\"percurso\":\"%s\",\"itens\":\"%s\",\"distancia_km\":%d,\"custo_total\":%.2f,\"custo_medio\":%.2f,\"caminhoes\":[",
+                                  BatchQuoter.escapeJson(transp.getCitiesString()), BatchQuoter.escapeJson(transp.getItemsString()), transp.getDistance(),
+                                  transp.getTotalCost(), transp.getAverageCost()));
+        for (int k=0; k<nTrucks.length; k++) {
+            if (k > 0) body.append(',');
+            body.append(nTrucks[k]);
+        }
+        body.append(']');
+
+        if (Boolean.parseBoolean(params.get("otimizar"))) {
+            long budget = RouteOptimizer.DEFAULT_TIME_BUDGET_MILLIS;
+            try {
+                budget = Long.parseLong(params.getOrDefault("orcamento_ms", String.valueOf(budget)).trim());
+            }
+            catch (NumberFormatException e) {
+                budget = -1;
+            }
+            if (budget <= 0 || budget > RouteOptimizer.MAX_TIME_BUDGET_MILLIS) {
+                send(exchange, 400, error(String.format("O orçamento de tempo deve ser um número inteiro de 1 a %d milissegundos.", RouteOptimizer.MAX_TIME_BUDGET_MILLIS)));
+                return;
+            }
+
+            if (!OPTIMIZATIONS.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, error("O serviço está otimizando outros percursos. Tente novamente em instantes."));
+                return;
+            }
+            Transportation optimized;
+            try {
+                optimized = RouteOptimizer.optimize(transp, budget).getOptimized();
+            }
+            finally {
+                OPTIMIZATIONS.release();
+            }
+            body.append(String.format(Locale.ROOT, ",\"otimizado\":{\"percurso\":\"%s\",\"distancia_km\":%d,\"custo_total\":%.2f,\"economia\":%.2f}",
+                                      BatchQuoter.escapeJson(optimized.getCitiesString()), optimized.getDistance(), optimized.getTotalCost(),
+                                      transp.getTotalCost() - optimized.getTotalCost()));
+        }
+        body.append('}');
+        try {
+            Core.register(transp).join();
+        }
+        catch (CompletionException e) {
+            send(exchange, 500, error("Não foi possível registrar o transporte."));
+            return;
+        }
+
+        send(exchange, 201, body.toString());
+    }
+
+    /**
+     * Handles the requests for the metrics.
+     * @param exchange the request and its response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            send(exchange, 405, error("Método não permitido."));
+            return;
+        }
+        send(exchange, 200, "text/plain; version=0.0.4; charset=utf-8", Metrics.dump());
+    }
+
+    /**
+     * Parses URL-encoded parameters (from a query string or a form body).
+     * @param raw the encoded parameters, which may be {@code null}.
+     * @return the decoded parameters.
+     * @throws IllegalArgumentException if any of the parameters has a malformed escape sequence (e.g. {@code %ZZ}).
+     */
+    private static Map<String, String> parseParams(String raw) throws IllegalArgumentException {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return params;
+
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                       URLDecoder.decode(pair.substring(eq+1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /**
+     * Builds the JSON body of an error response.
+     * @param message the error message.
+     * @return the JSON body.
+     */
+    private static String error(String message) {
+        return "{\"erro\":\"" + BatchQuoter.escapeJson(message) + "\"}";
+    }
+
+    /**
+     * Sends a JSON response.
+     * @param exchange the request and its response.
+     * @param status the HTTP status code.
+     * @param body the JSON body of the response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "application/json; charset=utf-8", body);
+    }
+
+    /**
+     * Sends a response.
+     * @param exchange the request and its response.
+     * @param status the HTTP status code.
+     * @param contentType the content type of the response.
+     * @param body the body of the response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Writes reports of transportations to a {@code Writer}, as CSV, JSON lines or human-readable text. The report is built in a small buffer that is flushed
+ * to the writer whenever it fills up, so the memory used does not depend on how many transportations are written, and numbers are formatted by hand,
+ * without {@code String.format}. The transportations of the report may be paged and filtered by city or by route.
+ */
+public class ReportWriter {
+    /**
+     * Formats in which the report can be written.
+     */
+    public enum Format { CSV, JSON_LINES, TEXT }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final double FAST_ROUNDING_LIMIT = 1e9;
+    private static final double HALF_CENT_TOLERANCE = 1e-3;
+    private static final String CSV_HEADER = "numero;percurso;distancia_km;custo_total;custo_medio;custo_por_km;" + truckColumns(Core.fleet) + "itens";
+    private static final char TEXT_DECIMAL_SEPARATOR = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+    private final Writer out;
+    private final Format format;
+    private final StringBuilder buf = new StringBuilder(BUFFER_SIZE + 1024);
+    private int offset = 0;
+    private int limit = Integer.MAX_VALUE;
+    private int city = -1;
+    private int[] route = null;
+
+    public ReportWriter(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Tells the format of a report from the name of the file it is written to: ".csv" for CSV, ".jsonl" or ".json" for JSON lines and text otherwise.
+     * @param fileName the name of the file.
+     * @return the format of the report.
+     */
+    public static Format formatOf(String fileName) {
+        String name = fileName.toLowerCase();
+        if (name.endsWith(".csv")) return Format.CSV;
+        if (name.endsWith(".jsonl") || name.endsWith(".json")) return Format.JSON_LINES;
+        return Format.TEXT;
+    }
+
+    /**
+     * Restricts the report to a page of the transportations that pass the filters.
+     * @param offset how many of the transportations that pass the filters are skipped.
+     * @param limit the maximum number of transportations written.
+     * @return this report writer.
+     */
+    public ReportWriter page(int offset, int limit) {
+        this.offset = Math.max(offset, 0);
+        this.limit = Math.max(limit, 0);
+        return this;
+    }
+
+    /**
+     * Restricts the report to the transportations whose route goes through a city.
+     * @param city the index of the city.
+     * @return this report writer.
+     */
+    public ReportWriter withCity(int city) {
+        this.city = city;
+        return this;
+    }
+
+    /**
+     * Restricts the report to the transportations with exactly the given route.
+     * @param route the indexes of the cities of the route.
+     * @return this report writer.
+     */
+    public ReportWriter withRoute(int[] route) {
+        this.route = route.clone();
+        return this;
+    }
+
+    /**
+     * Writes the report of the transportations in a registry.
+     * @param registry the registry.
+     * @return how many transportations have been written.
+     * @throws IOException if the report cannot be written.
+     */
+    public int write(TransportationRegistry registry) throws IOException {
+        long start = Metrics.start();
+        if (format == Format.CSV) buf.append(CSV_HEADER).append('\n');
+
+        int n = registry.size();
+        int matched = 0;
+        int written = 0;
+        for (int i=0; i<n && written<limit; i++) {
+            Transportation t = registry.get(i);
+            if (!matches(t)) continue;
+            if (matched++ < offset) continue;
+
+            append(i+1, t);
+            written++;
+            if (buf.length() >= BUFFER_SIZE) flushBuffer();
+        }
+
+        flushBuffer();
+        out.flush();
+        Metrics.stop(Metrics.Stage.REPORT, start);
+        return written;
+    }
+
+    /**
+     * Tells whether a transportation passes the filters of the report.
+     * @param t the transportation.
+     * @return {@code true} if the transportation passes the filters, {@code false} otherwise.
+     */
+    private boolean matches(Transportation t) {
+        int count = t.getCitiesCount();
+        if (route != null) {
+            if (count != route.length) return false;
+            for (int i=0; i<count; i++) {
+                if (t.getCityId(i) != route[i]) return false;
+            }
+        }
+        if (city >= 0) {
+            for (int i=0; i<count; i++) {
+                if (t.getCityId(i) == city) return true;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Appends a transportation to the buffer, in the format of the report.
+     * @param number the number of the transportation in the registry, starting at 1.
+     * @param t the transportation.
+     */
+    private void append(int number, Transportation t) {
+        int[] nTrucks = t.getNTrucks();
+        switch (format) {
+            case CSV:
+                buf.append(number).append(';');
+                appendCities(buf, t);
+                buf.append(';').append(t.getDistance()).append(';');
+                appendFixed(buf, t.getTotalCost(), '.');
+                buf.append(';');
+                appendFixed(buf, t.getAverageCost(), '.');
+                buf.append(';');
+                appendFixed(buf, t.getCostPerKm(), '.');
+                for (int k : nTrucks) buf.append(';').append(k);
+                buf.append(';').append(t.getItemsCount()).append('\n');
+                break;
+
+            case JSON_LINES:
+                buf.append("{\"numero\":").append(number).append(",\"percurso\":[");
+                for (int i=0; i<t.getCitiesCount(); i++) {
+                    if (i > 0) buf.append(',');
+                    buf.append('"').append(BatchQuoter.escapeJson(Core.cityIndex.nameOf(t.getCityId(i)))).append('"');
+                }
+                buf.append("],\"distancia_km\":").append(t.getDistance()).append(",\"custo_total\":");
+                appendFixed(buf, t.getTotalCost(), '.');
+                buf.append(",\"custo_medio\":");
+                appendFixed(buf, t.getAverageCost(), '.');
+                buf.append(",\"custo_trechos\":[");
+                for (int i=0; i<t.getCitiesCount()-1; i++) {
+                    if (i > 0) buf.append(',');
+                    appendFixed(buf, t.getLegCost(i), '.');
+                }
+                buf.append("],\"caminhoes\":[");
+                for (int k=0; k<nTrucks.length; k++) {
+                    if (k > 0) buf.append(',');
+                    buf.append(nTrucks[k]);
+                }
+                buf.append("],\"itens\":").append(t.getItemsCount()).append("}\n");
+                break;
+
+            case TEXT:
+                buf.append("TRANSPORTE ").append(number).append(":\n");
+                appendText(buf, t);
+                buf.append("\n\n");
+                break;
+        }
+    }
+
+    /**
+     * Appends the human-readable description of a transportation to a buffer.
+     * @param sb the buffer.
+     * @param t the transportation.
+     */
+    static void appendText(StringBuilder sb, Transportation t) {
+        double totalCost = t.getTotalCost();
+        int distance = t.getDistance();
+        int[] nTrucks = t.getNTrucks();
+
+        sb.append("Custo total: R$ ");
+        appendFixed(sb, totalCost, TEXT_DECIMAL_SEPARATOR);
+        sb.append(" | Custo por trecho:\n");
+        for (int i=0; i<t.getCitiesCount()-1; i++) {
+            sb.append("\t- ").append(Core.cityIndex.nameOf(t.getCityId(i))).append(" a ").append(Core.cityIndex.nameOf(t.getCityId(i+1))).append(": R$ ");
+            appendFixed(sb, t.getLegCost(i), TEXT_DECIMAL_SEPARATOR);
+            sb.append('\n');
+        }
+
+        sb.append("Custo médio por km: R$ ");
+        appendFixed(sb, totalCost/distance, TEXT_DECIMAL_SEPARATOR);
+        sb.append(" | Em média, cada tipo de produto custou R$ ");
+        appendFixed(sb, totalCost/t.getItemTypesCount(), TEXT_DECIMAL_SEPARATOR);
+        sb.append('\n');
+
+        sb.append("Custo por cada modalidade de transporte:\n");
+        int vehicles = 0;
+        for (int k=0; k<nTrucks.length; k++) {
+            sb.append("\t- ").append(Core.fleet.getName(k)).append(": R$ ");
+            appendFixed(sb, Core.fleet.getPrice(k) * distance * nTrucks[k], TEXT_DECIMAL_SEPARATOR);
+            sb.append('\n');
+            vehicles += nTrucks[k];
+        }
+        sb.append("Número total de veículos deslocados: ").append(vehicles).append('\n');
+        sb.append("Total de itens transportados: ").append(t.getItemsCount());
+    }
+
+    /**
+     * Appends the names of the cities of the route of a transportation to a buffer, separated by " - ".
+     * @param sb the buffer.
+     * @param t the transportation.
+     */
+    static void appendCities(StringBuilder sb, Transportation t) {
+        for (int i=0; i<t.getCitiesCount(); i++) {
+            if (i > 0) sb.append(" - ");
+            sb.append(Core.cityIndex.nameOf(t.getCityId(i)));
+        }
+    }
+
+    /**
+     * Builds the CSV columns with the number of vehicles of each class of a fleet.
+     * @param fleet the fleet.
+     * @return the names of the columns, each one followed by ";".
+     */
+    static String truckColumns(FleetModel fleet) {
+        StringBuilder sb = new StringBuilder();
+        for (int k=0; k<fleet.size(); k++) {
+            sb.append("caminhoes_").append(fleet.getId(k)).append(';');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends a number to a buffer, rounded to two decimal places in the same way as {@code String.format("%.2f")}: the shortest decimal representation
+     * of the number is rounded half up, so 1.005 is written as 1.01 even though the nearest double is slightly below it. Numbers whose cents are not
+     * close to a half are rounded directly in binary, which gives the same result; only the others go through {@code BigDecimal}.
+     * @param sb the buffer.
+     * @param value the number.
+     * @param decimalSeparator the character that separates the integer and the decimal parts.
+     */
+    static void appendFixed(StringBuilder sb, double value, char decimalSeparator) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            sb.append(value);
+            return;
+        }
+
+        if (Double.doubleToRawLongBits(value) < 0) sb.append('-');
+        double abs = Math.abs(value);
+        double scaled = abs * 100;
+        if (abs < FAST_ROUNDING_LIMIT && Math.abs(scaled - Math.floor(scaled) - 0.5) > HALF_CENT_TOLERANCE) {
+            long cents = Math.round(scaled);
+            sb.append(cents / 100).append(decimalSeparator);
+            long fraction = cents % 100;
+            if (fraction < 10) sb.append('0');
+            sb.append(fraction);
+            return;
+        }
+
+        String digits = BigDecimal.valueOf(abs).setScale(2, RoundingMode.HALF_UP).toPlainString();
+        int point = digits.length() - 3;
+        sb.append(digits, 0, point).append(decimalSeparator).append(digits, point+1, digits.length());
+    }
+
+    /**
+     * Writes the contents of the buffer and empties it.
+     * @throws IOException if the report cannot be written.
+     */
+    private void flushBuffer() throws IOException {
+        out.append(buf);
+        buf.setLength(0);
+    }
+}
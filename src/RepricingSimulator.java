@@ -0,0 +1,382 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates the costs of all registered transportations under other prices and distances, without changing them. The distance and the total weight of
+ * each transportation are copied once into primitive arrays, and each scenario reprices all of them in bulk with {@code FleetModel.costs}, on the common
+ * fork-join pool: the transportations are split into ranges, each task keeps its own partial sum and the partial sums are added when the tasks join.
+ * Besides fixed scenarios (e.g. "large trucks 12% more expensive"), prices and distances may be sampled at random (Monte Carlo), giving the distribution
+ * of the total cost of the registry. Since the best combination of vehicles depends on the prices, it is recalculated for each scenario and sample.
+ */
+public class RepricingSimulator {
+    /** Default number of samples of the Monte Carlo simulations. */
+    public static final int DEFAULT_SAMPLES = 1000;
+
+    private static final int LEAF_SIZE = 1 << 14;
+    private static final double MIN_FACTOR = 0.01;
+
+    /**
+     * Changes to the prices and distances of the transportations.
+     */
+    public static final class Scenario {
+        private final String name;
+        private final double[] priceFactors;
+        private final double distanceFactor;
+
+        /**
+         * Creates a scenario.
+         * @param name the name of the scenario.
+         * @param priceFactors the factor by which the price of each class of vehicles is multiplied, in the order of the fleet.
+         * @param distanceFactor the factor by which the distances are multiplied.
+         */
+        public Scenario(String name, double[] priceFactors, double distanceFactor) {
+            this.name = name;
+            this.priceFactors = priceFactors.clone();
+            this.distanceFactor = distanceFactor;
+        }
+
+        /**
+         * Parses a scenario made up by changes separated by ",", each one in the format "key=factor", where the key is the identifier of a class of
+         * vehicles of the fleet, "precos" (all classes) or "distancias", and the factor is either a number (e.g. 1.12) or a percentage (e.g. +12%).
+         * @param spec the description of the scenario, which is also its name.
+         * @param fleet the fleet whose classes are changed.
+         * @return the scenario.
+         * @throws IllegalArgumentException if the description is invalid.
+         */
+        public static Scenario parse(String spec, FleetModel fleet) throws IllegalArgumentException {
+            double[] priceFactors = new double[fleet.size()];
+            Arrays.fill(priceFactors, 1);
+            double distanceFactor = 1;
+
+            for (String change : spec.split(",")) {
+                int eq = change.indexOf('=');
+                if (eq <= 0) throw new IllegalArgumentException("Invalid change: " + change.trim());
+
+                String key = change.substring(0, eq).trim();
+                double factor = parseFactor(change.substring(eq+1).trim());
+                if (key.equalsIgnoreCase("distancias")) {
+                    distanceFactor *= factor;
+                }
+                else if (key.equalsIgnoreCase("precos")) {
+                    for (int k=0; k<priceFactors.length; k++) priceFactors[k] *= factor;
+                }
+                else {
+                    int k = fleet.indexOf(key);
+                    if (k < 0) throw new IllegalArgumentException("Unknown vehicle class: " + key);
+                    priceFactors[k] *= factor;
+                }
+            }
+            return new Scenario(spec, priceFactors, distanceFactor);
+        }
+
+        /**
+         * Parses a factor, given either as a number or as a percentage of change.
+         * @param s the factor.
+         * @return the factor, as a number.
+         * @throws IllegalArgumentException if the factor is invalid or not positive.
+         */
+        private static double parseFactor(String s) throws IllegalArgumentException {
+            double factor;
+            try {
+                factor = s.endsWith("%") ? 1 + Double.parseDouble(s.substring(0, s.length()-1)) / 100 : Double.parseDouble(s);
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid factor: " + s, e);
+            }
+            if (!(factor > 0)) throw new IllegalArgumentException("Factors must be positive: " + s);
+            return factor;
+        }
+
+        /**
+         * Tells the name of this scenario.
+         * @return the name of the scenario.
+         */
+        public String getName() { return name; }
+    }
+
+    /**
+     * Distribution of the costs obtained by a simulation.
+     */
+    public static final class Result {
+        private final String name;
+        private final int count;
+        private final double total;
+        private final double baselineTotal;
+        private final double mean;
+        private final double[] percentiles;
+
+        private Result(String name, double total, double baselineTotal, double[] sorted) {
+            this.name = name;
+            this.count = sorted.length;
+            this.total = total;
+            this.baselineTotal = baselineTotal;
+
+            double sum = 0;
+            for (double v : sorted) sum += v;
+            this.mean = count == 0 ? 0 : sum / count;
+            this.percentiles = new double[] {percentile(sorted, 0), percentile(sorted, 0.05), percentile(sorted, 0.5), percentile(sorted, 0.95),
+                                             percentile(sorted, 0.99), percentile(sorted, 1)};
+        }
+
+        /**
+         * Tells the name of the simulated scenario.
+         * @return the name of the scenario.
+         */
+        public String getName() { return name; }
+
+        /**
+         * Tells how many values make up the distribution: transportations, for a fixed scenario, or samples, for a Monte Carlo simulation.
+         * @return the number of values in the distribution.
+         */
+        public int getCount() { return count; }
+
+        /**
+         * Tells the total cost of the registry in the simulation: for a Monte Carlo simulation, the mean of the totals of the samples.
+         * @return the total cost of the registry.
+         */
+        public double getTotal() { return total; }
+
+        /**
+         * Tells the total cost of the registry with the current prices and distances.
+         * @return the total cost of the registry without any change.
+         */
+        public double getBaselineTotal() { return baselineTotal; }
+
+        /**
+         * Tells the relative change of the total cost of the registry.
+         * @return the total cost of the simulation divided by the current total cost, minus 1.
+         */
+        public double getVariation() { return baselineTotal == 0 ? 0 : total / baselineTotal - 1; }
+
+        /**
+         * Tells the mean of the distribution.
+         * @return the mean of the values.
+         */
+        public double getMean() { return mean; }
+
+        /**
+         * Tells the smallest value of the distribution.
+         * @return the smallest value of the distribution.
+         */
+        public double getMin() { return percentiles[0]; }
+
+        /**
+         * Tells the 5th percentile of the distribution.
+         * @return the 5th percentile of the values.
+         */
+        public double getP5() { return percentiles[1]; }
+
+        /**
+         * Tells the median of the distribution.
+         * @return the median of the values.
+         */
+        public double getP50() { return percentiles[2]; }
+
+        /**
+         * Tells the 95th percentile of the distribution.
+         * @return the 95th percentile of the values.
+         */
+        public double getP95() { return percentiles[3]; }
+
+        /**
+         * Tells the 99th percentile of the distribution.
+         * @return the 99th percentile of the values.
+         */
+        public double getP99() { return percentiles[4]; }
+
+        /**
+         * Tells the largest value of the distribution.
+         * @return the largest value of the distribution.
+         */
+        public double getMax() { return percentiles[5]; }
+
+        /**
+         * Tells a percentile of sorted values, by the nearest-rank method.
+         * @param sorted the values, in ascending order.
+         * @param p the percentile, between 0 and 1.
+         * @return the value of the percentile, or 0 if there are no values.
+         */
+        private static double percentile(double[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int rank = (int) Math.ceil(p * sorted.length);
+            return sorted[Math.min(Math.max(rank-1, 0), sorted.length-1)];
+        }
+    }
+
+    private final FleetModel fleet;
+    private final int n;
+    private final int[] distances;
+    private final double[] weights;
+    private final double baselineTotal;
+
+    /**
+     * Creates a simulator of the transportations currently in a registry. Transportations added to the registry afterwards are not simulated.
+     * @param registry the registry.
+     * @param fleet the fleet with the current prices.
+     */
+    public RepricingSimulator(TransportationRegistry registry, FleetModel fleet) {
+        this.fleet = fleet;
+        this.n = registry.size();
+        this.distances = new int[n];
+        this.weights = new double[n];
+        for (int i=0; i<n; i++) {
+            Transportation t = registry.get(i);
+            distances[i] = t.getDistance();
+            weights[i] = t.getTotalWeight();
+        }
+        this.baselineTotal = ForkJoinPool.commonPool().invoke(new Costing(fleet, 1, new double[n], 0, n));
+    }
+
+    /**
+     * Tells how many transportations are simulated.
+     * @return the number of transportations.
+     */
+    public int size() { return n; }
+
+    /**
+     * Simulates a fixed scenario.
+     * @param scenario the scenario.
+     * @return the distribution of the costs of the transportations in the scenario.
+     */
+    public Result run(Scenario scenario) {
+        FleetModel repriced = fleet.withPriceFactors(scenario.priceFactors);
+        double[] costs = new double[n];
+        double total = ForkJoinPool.commonPool().invoke(new Costing(repriced, scenario.distanceFactor, costs, 0, n));
+        Arrays.parallelSort(costs);
+        return new Result(scenario.name, total, baselineTotal, costs);
+    }
+
+    /**
+     * Simulates random changes to the prices and distances. In each sample, the price of each class of vehicles is multiplied by a factor drawn from a
+     * normal distribution with mean 1, and so is the distance of each transportation, independently. The samples are split among the threads of the
+     * common fork-join pool, and each task reuses its own buffer of costs for all its samples. The results depend only on the seed, not on how the
+     * samples are split.
+     * @param name the name of the simulation.
+     * @param samples the number of samples.
+     * @param priceDeviation the standard deviation of the factors of the prices.
+     * @param distanceDeviation the standard deviation of the factors of the distances.
+     * @param seed the seed of the random numbers.
+     * @return the distribution of the total cost of the registry among the samples.
+     * @throws IllegalArgumentException if the number of samples is not positive or any of the deviations is negative.
+     */
+    public Result monteCarlo(String name, int samples, double priceDeviation, double distanceDeviation, long seed) throws IllegalArgumentException {
+        if (samples <= 0) throw new IllegalArgumentException("The number of samples must be positive.");
+        if (priceDeviation < 0 || distanceDeviation < 0) throw new IllegalArgumentException("The deviations must not be negative.");
+
+        double[] totals = new double[samples];
+        int leafSamples = Math.max(1, samples / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        ForkJoinPool.commonPool().invoke(new Sampling(totals, 0, samples, leafSamples, priceDeviation, distanceDeviation, seed));
+
+        double sum = 0;
+        for (double total : totals) sum += total;
+        Arrays.sort(totals);
+        return new Result(name, sum / samples, baselineTotal, totals);
+    }
+
+    /**
+     * Task that calculates the costs of a range of transportations and adds them up.
+     */
+    private class Costing extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final FleetModel repriced;
+        private final double distanceFactor;
+        private final double[] costs;
+        private final int from;
+        private final int to;
+
+        Costing(FleetModel repriced, double distanceFactor, double[] costs, int from, int to) {
+            this.repriced = repriced;
+            this.distanceFactor = distanceFactor;
+            this.costs = costs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                Costing left = new Costing(repriced, distanceFactor, costs, from, mid);
+                left.fork();
+                double right = new Costing(repriced, distanceFactor, costs, mid, to).compute();
+                return left.join() + right;
+            }
+
+            repriced.costs(distances, weights, costs, from, to);
+            double sum = 0;
+            for (int i=from; i<to; i++) {
+                costs[i] *= distanceFactor;
+                sum += costs[i];
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Task that draws a range of Monte Carlo samples and stores the total cost of each one.
+     */
+    private class Sampling extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] totals;
+        private final int from;
+        private final int to;
+        private final int leafSamples;
+        private final double priceDeviation;
+        private final double distanceDeviation;
+        private final long seed;
+
+        Sampling(double[] totals, int from, int to, int leafSamples, double priceDeviation, double distanceDeviation, long seed) {
+            this.totals = totals;
+            this.from = from;
+            this.to = to;
+            this.leafSamples = leafSamples;
+            this.priceDeviation = priceDeviation;
+            this.distanceDeviation = distanceDeviation;
+            this.seed = seed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leafSamples) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Sampling(totals, from, mid, leafSamples, priceDeviation, distanceDeviation, seed),
+                          new Sampling(totals, mid, to, leafSamples, priceDeviation, distanceDeviation, seed));
+                return;
+            }
+
+            double[] costs = new double[n];
+            double[] factors = new double[fleet.size()];
+            for (int s=from; s<to; s++) {
+                SplittableRandom random = new SplittableRandom(seed ^ (s * 0x9E3779B97F4A7C15L));
+                for (int k=0; k<factors.length; k++) {
+                    factors[k] = Math.max(1 + priceDeviation * gaussian(random), MIN_FACTOR);
+                }
+                fleet.withPriceFactors(factors).costs(distances, weights, costs, 0, n);
+
+                double total = 0;
+                if (distanceDeviation == 0) {
+                    for (int i=0; i<n; i++) total += costs[i];
+                }
+                else {
+                    for (int i=0; i<n; i++) total += costs[i] * Math.max(1 + distanceDeviation * gaussian(random), MIN_FACTOR);
+                }
+                totals[s] = total;
+            }
+        }
+    }
+
+    /**
+     * Draws a number from the standard normal distribution, by the Box-Muller transform.
+     * @param random the source of random numbers.
+     * @return the number drawn.
+     */
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
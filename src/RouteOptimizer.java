@@ -0,0 +1,355 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reorders the intermediate cities of the route of a transportation to minimize its total distance, keeping the origin and the final destination in place.
+ * Each attempt builds a route by nearest neighbour and improves it by 2-opt (reversal of a stretch of the route) and Or-opt (relocation of a stretch of up to
+ * three cities) moves, until no move shortens the route. The attempts are restarted, with randomized construction, in parallel until the time budget runs
+ * out or {@code STALE_ATTEMPTS} attempts in a row find nothing shorter, and the shortest route found is kept. Routes with up to {@code EXHAUSTIVE_CITIES}
+ * intermediate cities are not searched: every order of their cities is tried, which takes less than a millisecond. The attempts run on a fork-join pool of their own, bounded by the system property
+ * "routeOptimizer.threads" (the number of processors by default), so optimizations never hold up the common pool used by the rest of the program. The distances are read through {@code Core.distance} and may be asymmetric; they
+ * are summed as {@code long}, so legs with no path ({@code ShortestPaths.UNREACHABLE}) are never chosen over the original ones.
+ */
+public class RouteOptimizer {
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 200;
+    /** Longest time budget accepted for an optimization, in milliseconds. */
+    public static final long MAX_TIME_BUDGET_MILLIS = 5000;
+    /** Largest number of intermediate cities of a route for which every order is tried. */
+    public static final int EXHAUSTIVE_CITIES = 8;
+    /** Number of attempts in a row that do not shorten the best route of a worker after which the worker stops, even within the time budget. */
+    public static final int STALE_ATTEMPTS = 50;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(Integer.getInteger("routeOptimizer.threads",
+                                                                                           Runtime.getRuntime().availableProcessors()), 1));
+
+    /**
+     * Result of the optimization of a transportation, with both the original and the optimized transportation, so the cheapest can be chosen.
+     */
+    public static class Result {
+        private final Transportation original;
+        private final Transportation optimized;
+
+        private Result(Transportation original, Transportation optimized) {
+            this.original = original;
+            this.optimized = optimized;
+        }
+
+        /**
+         * Tells the transportation with the route in the original order.
+         * @return the original transportation.
+         */
+        public Transportation getOriginal() { return original; }
+
+        /**
+         * Tells the transportation with the route in the optimized order.
+         * @return the optimized transportation.
+         */
+        public Transportation getOptimized() { return optimized; }
+
+        /**
+         * Tells how much is saved by using the optimized route.
+         * @return the difference between the total costs of the original and of the optimized transportations.
+         */
+        public double getSavings() { return original.getTotalCost() - optimized.getTotalCost(); }
+    }
+
+    private final int[] route;
+    private final int[][] dist;
+    private final int n;
+
+    private RouteOptimizer(int[] route) {
+        this.route = route;
+        this.n = route.length;
+        this.dist = new int[n][n];
+        for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++) {
+                dist[i][j] = Core.distance(route[i], route[j]);
+            }
+        }
+    }
+
+    /**
+     * Optimizes the route of a transportation.
+     * @param transp the transportation to be optimized.
+     * @param timeBudgetMillis how long the optimization may run, in milliseconds, from 1 to {@code MAX_TIME_BUDGET_MILLIS}. At least one attempt is always
+     * completed.
+     * @return the original and the optimized transportations.
+     * @throws IllegalArgumentException if the time budget is out of range.
+     */
+    public static Result optimize(Transportation transp, long timeBudgetMillis) throws IllegalArgumentException {
+        int[] optimized = optimize(transp.getRoute(), timeBudgetMillis);
+        return new Result(transp, transp.withRoute(optimized));
+    }
+
+    /**
+     * Optimizes a route.
+     * @param route the indexes of the cities of the route, in the original order.
+     * @param timeBudgetMillis how long the optimization may run, in milliseconds, from 1 to {@code MAX_TIME_BUDGET_MILLIS}. At least one attempt is always
+     * completed.
+     * @return the indexes of the cities of the route, in the optimized order.
+     * @throws IllegalArgumentException if the time budget is out of range.
+     */
+    public static int[] optimize(int[] route, long timeBudgetMillis) throws IllegalArgumentException {
+        if (timeBudgetMillis <= 0 || timeBudgetMillis > MAX_TIME_BUDGET_MILLIS) {
+            throw new IllegalArgumentException("The time budget must be from 1 to " + MAX_TIME_BUDGET_MILLIS + " ms: " + timeBudgetMillis);
+        }
+        if (route.length <= 3) return route.clone();
+
+        RouteOptimizer optimizer = new RouteOptimizer(route);
+        int[] best = route.length - 2 <= EXHAUSTIVE_CITIES ? optimizer.exhaustive() : optimizer.searchInParallel(timeBudgetMillis);
+
+        int[] result = new int[route.length];
+        for (int i=0; i<result.length; i++) {
+            result[i] = route[best[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Runs attempts on every worker of the pool until the time budget runs out or the workers stop finding shorter routes.
+     * @param timeBudgetMillis how long the search may run, in milliseconds.
+     * @return the positions, in the original route, of the cities of the shortest route found.
+     */
+    private int[] searchInParallel(long timeBudgetMillis) {
+        long deadline = System.nanoTime() + timeBudgetMillis * 1_000_000;
+
+        ForkJoinPool pool = POOL;
+        int workers = pool.getParallelism();
+        List<Callable<int[]>> tasks = new ArrayList<>();
+        for (int w=0; w<workers; w++) {
+            final int worker = w;
+            tasks.add(() -> search(worker, deadline));
+        }
+
+        int[] best = identity();
+        improve(best);
+        try {
+            for (Future<int[]> f : pool.invokeAll(tasks)) {
+                int[] order = f.get();
+                if (length(order) < length(best)) best = order;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Route optimization failed.", e.getCause());
+        }
+        return best;
+    }
+
+    /**
+     * Runs attempts until the deadline, or until {@code STALE_ATTEMPTS} attempts in a row do not shorten the best route, keeping the shortest route found.
+     * @param worker the index of the worker, used as the seed of its random choices.
+     * @param deadline the instant, as given by {@code System.nanoTime()}, after which no more attempts are started.
+     * @return the positions, in the original route, of the cities of the shortest route found.
+     */
+    private int[] search(int worker, long deadline) {
+        Random random = new Random(worker);
+        int[] best = null;
+        int attempt = 0;
+        int stale = 0;
+        do {
+            int[] order = nearestNeighbour(worker == 0 && attempt == 0 ? null : random);
+            improve(order);
+            if (best == null || length(order) < length(best)) {
+                best = order;
+                stale = 0;
+            }
+            else {
+                stale++;
+            }
+            attempt++;
+        } while (stale < STALE_ATTEMPTS && System.nanoTime() < deadline);
+        return best;
+    }
+
+    /**
+     * Tries every order of the intermediate cities, in lexicographic order, keeping the shortest route.
+     * @return the positions, in the original route, of the cities of the shortest route.
+     */
+    private int[] exhaustive() {
+        int[] order = identity();
+        int[] best = order.clone();
+        long bestLength = length(best);
+        while (nextPermutation(order)) {
+            long length = length(order);
+            if (length < bestLength) {
+                bestLength = length;
+                System.arraycopy(order, 0, best, 0, n);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Rearranges the intermediate cities of a route into the next order, in lexicographic order.
+     * @param order the route, which is changed in place.
+     * @return {@code true} if the route was changed, {@code false} if it was already in the last order.
+     */
+    private boolean nextPermutation(int[] order) {
+        int i = n - 3;
+        while (i >= 1 && order[i] > order[i+1]) i--;
+        if (i < 1) return false;
+
+        int j = n - 2;
+        while (order[j] < order[i]) j--;
+        int tmp = order[i]; order[i] = order[j]; order[j] = tmp;
+        for (int a=i+1, b=n-2; a<b; a++, b--) {
+            tmp = order[a]; order[a] = order[b]; order[b] = tmp;
+        }
+        return true;
+    }
+
+    /**
+     * Builds a route by always moving to the nearest city not yet visited. If randomized, each step moves to one of the three nearest cities instead.
+     * @param random the source of the random choices, or {@code null} for the deterministic construction.
+     * @return the positions, in the original route, of the cities of the built route.
+     */
+    private int[] nearestNeighbour(Random random) {
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        order[0] = 0;
+        order[n-1] = n-1;
+        visited[0] = true;
+        visited[n-1] = true;
+
+        int[] candidates = new int[3];
+        for (int pos=1; pos<n-1; pos++) {
+            int from = order[pos-1];
+            int found = 0;
+            for (int c=1; c<n-1; c++) {
+                if (visited[c]) continue;
+                int k = Math.min(found, candidates.length-1);
+                if (found < candidates.length || dist[from][c] < dist[from][candidates[k]]) {
+                    candidates[k] = c;
+                    for (; k>0 && dist[from][candidates[k]] < dist[from][candidates[k-1]]; k--) {
+                        int tmp = candidates[k]; candidates[k] = candidates[k-1]; candidates[k-1] = tmp;
+                    }
+                    found = Math.min(found + 1, candidates.length);
+                }
+            }
+
+            int next = candidates[random == null ? 0 : random.nextInt(found)];
+            order[pos] = next;
+            visited[next] = true;
+        }
+        return order;
+    }
+
+    /**
+     * Applies 2-opt and Or-opt moves to a route until none of them shortens it.
+     * @param order the positions, in the original route, of the cities of the route to be improved, which is changed in place.
+     */
+    private void improve(int[] order) {
+        boolean improved = true;
+        while (improved) {
+            improved = twoOpt(order) || orOpt(order);
+        }
+    }
+
+    /**
+     * Applies the first 2-opt move that shortens a route.
+     * @param order the route, which is changed in place.
+     * @return {@code true} if the route was changed, {@code false} otherwise.
+     */
+    private boolean twoOpt(int[] order) {
+        for (int i=1; i<n-2; i++) {
+            for (int j=i+1; j<n-1; j++) {
+                long before = (long) dist[order[i-1]][order[i]] + dist[order[j]][order[j+1]];
+                long after = (long) dist[order[i-1]][order[j]] + dist[order[i]][order[j+1]];
+                for (int k=i; k<j; k++) {
+                    before += dist[order[k]][order[k+1]];
+                    after += dist[order[k+1]][order[k]];
+                }
+
+                if (after < before) {
+                    for (int a=i, b=j; a<b; a++, b--) {
+                        int tmp = order[a]; order[a] = order[b]; order[b] = tmp;
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the first Or-opt move (relocation of a stretch of one to three cities) that shortens a route.
+     * @param order the route, which is changed in place.
+     * @return {@code true} if the route was changed, {@code false} otherwise.
+     */
+    private boolean orOpt(int[] order) {
+        for (int len=1; len<=3; len++) {
+            for (int i=1; i+len<n; i++) {
+                int first = order[i];
+                int last = order[i+len-1];
+                int prev = order[i-1];
+                int next = order[i+len];
+                long removed = (long) dist[prev][first] + dist[last][next] - dist[prev][next];
+
+                for (int j=0; j<n-1; j++) {
+                    if (j >= i-1 && j < i+len) continue;
+                    int a = order[j];
+                    int b = order[j+1];
+                    long inserted = (long) dist[a][first] + dist[last][b] - dist[a][b];
+                    if (inserted < removed) {
+                        move(order, i, len, j);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves a stretch of a route so that it comes right after another position.
+     * @param order the route, which is changed in place.
+     * @param start the position of the first city of the stretch.
+     * @param len the number of cities in the stretch.
+     * @param after the position of the city after which the stretch is placed.
+     */
+    private static void move(int[] order, int start, int len, int after) {
+        int[] segment = new int[len];
+        System.arraycopy(order, start, segment, 0, len);
+        if (after < start) {
+            System.arraycopy(order, after+1, order, after+1+len, start-after-1);
+            System.arraycopy(segment, 0, order, after+1, len);
+        }
+        else {
+            System.arraycopy(order, start+len, order, start, after-start-len+1);
+            System.arraycopy(segment, 0, order, after-len+1, len);
+        }
+    }
+
+    /**
+     * Returns the route in the original order.
+     * @return the positions of the cities in the original route.
+     */
+    private int[] identity() {
+        int[] order = new int[n];
+        for (int i=0; i<n; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Tells the total distance of a route.
+     * @param order the positions, in the original route, of the cities of the route.
+     * @return the total distance of the route, in km.
+     */
+    private long length(int[] order) {
+        long sum = 0;
+        for (int i=0; i<n-1; i++) {
+            sum += dist[order[i]][order[i+1]];
+        }
+        return sum;
+    }
+}
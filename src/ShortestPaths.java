@@ -0,0 +1,155 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Shortest distances between all pairs of cities, which may go through intermediate cities when that is shorter than the direct distance, together with
+ * the next city of each shortest path, so the paths can be rebuilt. The distances are computed once by a blocked Floyd-Warshall algorithm: the matrix is
+ * split into square blocks that fit in the processor cache and, for each diagonal block, the blocks of its row and column and then all remaining blocks are
+ * relaxed in parallel on the common fork-join pool. Negative distances in the original matrix mean that there is no direct road between the cities.
+ */
+public class ShortestPaths {
+    /** Distance of the pairs of cities without any path between them. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE / 2;
+
+    private static final int BLOCK_SIZE = 64;
+
+    private final int n;
+    private final int[] dist;
+    private final int[] next;
+
+    private ShortestPaths(int n, int[] dist, int[] next) {
+        this.n = n;
+        this.dist = dist;
+        this.next = next;
+    }
+
+    /**
+     * Computes the shortest distances between all pairs of cities.
+     * @param distances the direct distances between the cities.
+     * @return the shortest distances and paths.
+     */
+    public static ShortestPaths compute(DistanceMatrix distances) {
+        int n = distances.size();
+        int[] dist = new int[n * n];
+        int[] next = new int[n * n];
+        for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++) {
+                int d = i == j ? 0 : distances.distance(i, j);
+                dist[i*n + j] = d < 0 ? UNREACHABLE : d;
+                next[i*n + j] = d < 0 ? -1 : j;
+            }
+        }
+
+        int blocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        for (int k=0; k<blocks; k++) {
+            final int kb = k;
+            relax(dist, next, n, kb, kb, kb);
+
+            List<RecursiveAction> line = new ArrayList<>();
+            for (int b=0; b<blocks; b++) {
+                if (b == kb) continue;
+                final int ob = b;
+                line.add(action(() -> relax(dist, next, n, kb, ob, kb)));
+                line.add(action(() -> relax(dist, next, n, ob, kb, kb)));
+            }
+            pool.invoke(action(() -> RecursiveAction.invokeAll(line)));
+
+            List<RecursiveAction> rest = new ArrayList<>();
+            for (int ib=0; ib<blocks; ib++) {
+                if (ib == kb) continue;
+                final int rb = ib;
+                rest.add(action(() -> {
+                    for (int jb=0; jb<blocks; jb++) {
+                        if (jb != kb) relax(dist, next, n, rb, jb, kb);
+                    }
+                }));
+            }
+            pool.invoke(action(() -> RecursiveAction.invokeAll(rest)));
+        }
+
+        return new ShortestPaths(n, dist, next);
+    }
+
+    /**
+     * Tells how many cities there are.
+     * @return the number of cities.
+     */
+    public int size() { return n; }
+
+    /**
+     * Tells the shortest distance between two cities.
+     * @param from the index of the origin city.
+     * @param to the index of the destination city.
+     * @return the shortest distance from the origin to the destination city, in km, or {@code UNREACHABLE} if there is no path between them.
+     */
+    public int distance(int from, int to) { return dist[from*n + to]; }
+
+    /**
+     * Rebuilds the shortest path between two cities.
+     * @param from the index of the origin city.
+     * @param to the index of the destination city.
+     * @return the indexes of the cities of the path, including the origin and the destination, or an empty array if there is no path between them.
+     */
+    public int[] path(int from, int to) {
+        if (next[from*n + to] < 0) return new int[0];
+
+        int length = 1;
+        for (int c=from; c!=to; c=next[c*n + to]) length++;
+
+        int[] path = new int[length];
+        int c = from;
+        for (int i=0; i<length; i++) {
+            path[i] = c;
+            c = next[c*n + to];
+        }
+        return path;
+    }
+
+    /**
+     * Relaxes the paths of a block of the matrix through the cities of a pivot block.
+     * @param dist the shortest distances found so far.
+     * @param next the next city of each shortest path found so far.
+     * @param n the number of cities.
+     * @param ib the row of the block to be relaxed.
+     * @param jb the column of the block to be relaxed.
+     * @param kb the index of the pivot block.
+     */
+    private static void relax(int[] dist, int[] next, int n, int ib, int jb, int kb) {
+        int kEnd = Math.min((kb+1) * BLOCK_SIZE, n);
+        int iEnd = Math.min((ib+1) * BLOCK_SIZE, n);
+        int jStart = jb * BLOCK_SIZE;
+        int jEnd = Math.min(jStart + BLOCK_SIZE, n);
+
+        for (int k=kb*BLOCK_SIZE; k<kEnd; k++) {
+            int kRow = k*n;
+            for (int i=ib*BLOCK_SIZE; i<iEnd; i++) {
+                int iRow = i*n;
+                int ik = dist[iRow + k];
+                if (ik >= UNREACHABLE) continue;
+                int nextIk = next[iRow + k];
+                for (int j=jStart; j<jEnd; j++) {
+                    int through = ik + dist[kRow + j];
+                    if (through < dist[iRow + j]) {
+                        dist[iRow + j] = through;
+                        next[iRow + j] = nextIk;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Wraps a piece of code in a fork-join action.
+     * @param body the code to be run.
+     * @return the action that runs the code.
+     */
+    private static RecursiveAction action(Runnable body) {
+        return new RecursiveAction() {
+            @Override
+            protected void compute() { body.run(); }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Event of Java Flight Recorder emitted when the quote of a transportation requested by a user (from the resolution of its cities to its costs) takes
+ * longer than {@code Metrics.SLOW_QUOTE_NANOS}. The events are only recorded while a recording is running, e.g. when the program is started with
+ * {@code -XX:StartFlightRecording}, and can be inspected in JDK Mission Control or with {@code jfr print --events transportes.SlowQuote}.
+ */
+@Name("transportes.SlowQuote")
+@Label("Slow Quote")
+@Category("Transportes")
+@Description("Quote of a transportation slower than the threshold of the metrics")
+public class SlowQuoteEvent extends Event {
+    @Label("Route")
+    String route;
+
+    @Label("Cities")
+    int cities;
+
+    @Label("Weight")
+    @Description("Total weight of the items, in kg")
+    double weight;
+
+    @Label("Distance")
+    @Description("Total distance of the route, in km")
+    int distance;
+
+    @Label("Cost")
+    double cost;
+
+    @Label("Quote Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long quoteTime;
+
+    /**
+     * Emits an event for a slow transportation, if a recording is running.
+     * @param transp the transportation.
+     * @param nanos how long the transportation took to be created, in nanoseconds.
+     */
+    static void emit(Transportation transp, long nanos) {
+        SlowQuoteEvent event = new SlowQuoteEvent();
+        if (!event.shouldCommit()) return;
+
+        event.route = transp.getCitiesString();
+        event.cities = transp.getCitiesCount();
+        event.weight = transp.getTotalWeight();
+        event.distance = transp.getDistance();
+        event.cost = transp.getTotalCost();
+        event.quoteTime = nanos;
+        event.commit();
+    }
+}
@@ -1,58 +1,183 @@
-import java.util.ArrayList;
-
 /**
- * Represents the transportations made by the company, which are made up by instances of the {@code Item} class.
+ * Represents the transportations made by the company, which are made up by items.
+ * Transportations are immutable: the distances, the trucks and the costs are all calculated once, when the transportation is created,
+ * so instances can be freely shared among threads. The items are stored column by column, in arrays of primitive values and of names. Once a
+ * transportation is registered, its names are replaced by the instances shared through {@code Core.itemCatalog}. The distances and costs come from {@code Core.quoteCache}, whose arrays are shared and therefore never exposed
+ * without being copied.
  */
-public class Transportation {
-    private ArrayList<String> cities;
-    private ArrayList<Item> items;
-    private ArrayList<Integer> distancesList;
-
-    public Transportation(String[] cities, Item[] items) {
-        this.cities = new ArrayList<>();
-        for (String c : cities) {
-            this.cities.add(c.trim());
-        }
+public final class Transportation {
+    private final int[] cities;
+    private final String[] names;
+    private final double[] weights;
+    private final int[] quantities;
+
+    private final int distance;
+    private final int itemsCount;
+    private final double totalWeight;
+    private final int[] nTrucks;
+    private final double costPerKm;
+    private final double[] legCosts;
+    private final double totalCost;
+    private final double averageCost;
+
+    private static final long UNMEASURED = Long.MIN_VALUE;
+
+    public Transportation(String[] cities, Item[] items) throws IllegalArgumentException {
+        this(Metrics.start(), Core.cityIndex.resolve(cities), namesOf(items), weightsOf(items), quantitiesOf(items));
+    }
+
+    public Transportation(String[] cities, Manifest manifest) throws IllegalArgumentException {
+        this(Metrics.start(), Core.cityIndex.resolve(cities), namesOf(manifest), weightsOf(manifest), quantitiesOf(manifest));
+    }
+
+    public Transportation(int[] cities, Item[] items) {
+        this(Metrics.start(), cities, namesOf(items), weightsOf(items), quantitiesOf(items));
+    }
+
+    public Transportation(int[] cities, Manifest manifest) {
+        this(Metrics.start(), cities, namesOf(manifest), weightsOf(manifest), quantitiesOf(manifest));
+    }
 
-        this.items = new ArrayList<>();
-        for (Item i : items) {
-            this.items.add(i);
+    /**
+     * Creates a transportation.
+     * @param start the time returned by {@code Metrics.start()} when the transportation was requested, before its cities were resolved, or
+     * {@code UNMEASURED} if it is not a quote requested by a user and must not be counted in the metrics.
+     * @param cities the indexes of the cities of the route.
+     * @param names the names of the items.
+     * @param weights the weight of a single unit of each item.
+     * @param quantities the quantity of each item.
+     */
+    private Transportation(long start, int[] cities, String[] names, double[] weights, int[] quantities) {
+        this.cities = cities.clone();
+        this.names = names;
+        this.weights = weights;
+        this.quantities = quantities;
+
+        int nItems = 0;
+        double weight = 0;
+        for (int i=0; i<quantities.length; i++) {
+            nItems += quantities[i];
+            weight += weights[i] * quantities[i];
         }
+        this.itemsCount = nItems;
+        this.totalWeight = weight;
+
+        QuoteCache.Quote quote = Core.quoteCache.quote(this.cities, weight);
+        this.distance = quote.route.distance;
+        this.nTrucks = quote.nTrucks;
+        this.costPerKm = quote.costPerKm;
+        this.legCosts = quote.legCosts;
+        this.totalCost = quote.totalCost;
+        this.averageCost = totalCost / itemsCount;
+        if (start != UNMEASURED) Metrics.quoted(this, start);
+    }
 
-        this.distancesList = new ArrayList<>();
-        calculateDistances();
+    /**
+     * Restores a transportation stored earlier (e.g. in the journal). Unlike the constructors, it is not counted as a quote in the metrics, and the
+     * names of its items are added to {@code Core.itemCatalog} at once, since it was registered.
+     * @param cities the indexes of the cities of the route.
+     * @param manifest the items of the transportation.
+     * @return the restored transportation.
+     */
+    static Transportation restore(int[] cities, Manifest manifest) {
+        Transportation transp = new Transportation(UNMEASURED, cities, namesOf(manifest), weightsOf(manifest), quantitiesOf(manifest));
+        transp.internNames();
+        return transp;
+    }
+
+    /**
+     * Replaces the names of the items by the instances shared through {@code Core.itemCatalog}, adding them to the catalog. This is done when the
+     * transportation is registered, so that only the names of registered transportations are kept in the catalog; the names are equal, so the
+     * transportation looks the same to every thread before and after.
+     */
+    void internNames() {
+        for (int i=0; i<names.length; i++) {
+            names[i] = Core.itemCatalog.intern(names[i]);
+        }
     }
 
     /**
      * Tells how many cities are in this transportation's route.
      * @return the number of cities in this transportation's route.
      */
-    public int getCitiesCount() { return cities.size(); }
+    public int getCitiesCount() { return cities.length; }
 
     /**
-     * Tells how many items are in this transportation.
-     * @return the number of items in this transportation.
+     * Returns the cities in this transportation's route.
+     * @return an array containing the indexes of the cities, in the order of the route.
      */
-    public int getItemsCount() { 
-        int nItems = 0;
-        for (Item i : items) {
-            nItems += i.getQuantity();
-        }
+    public int[] getRoute() { return cities.clone(); }
+
+    /**
+     * Tells a city in this transportation's route.
+     * @param i the position of the city in the route.
+     * @return the index of the city.
+     */
+    public int getCityId(int i) { return cities[i]; }
 
-        return nItems;
+    /**
+     * Returns the items in this transportation.
+     * @return an array containing the items in this transportation.
+     */
+    public Item[] getItems() {
+        Item[] items = new Item[names.length];
+        for (int i=0; i<items.length; i++) {
+            items[i] = new Item(names[i], weights[i], quantities[i]);
+        }
+        return items;
     }
 
+    /**
+     * Tells how many kinds of items (distinct entries of the manifest) are in this transportation.
+     * @return the number of kinds of items in this transportation.
+     */
+    public int getItemTypesCount() { return names.length; }
+
+    /**
+     * Tells the name of a kind of item in this transportation.
+     * @param i the position of the item in this transportation.
+     * @return the name of the item.
+     */
+    public String getItemName(int i) { return names[i]; }
+
+    /**
+     * Tells the weight of a kind of item in this transportation.
+     * @param i the position of the item in this transportation.
+     * @return the weight of a single unit of the item, in kg.
+     */
+    public double getItemWeight(int i) { return weights[i]; }
+
+    /**
+     * Tells the quantity of a kind of item in this transportation.
+     * @param i the position of the item in this transportation.
+     * @return how many units of the item are in this transportation.
+     */
+    public int getItemQuantity(int i) { return quantities[i]; }
+
+    /**
+     * Returns a transportation with the same items as this one, but with another route.
+     * @param route the indexes of the cities of the new route.
+     * @return the transportation with the new route.
+     */
+    public Transportation withRoute(int[] route) { return new Transportation(UNMEASURED, route, names, weights, quantities); }
+
+    /**
+     * Tells how many items are in this transportation.
+     * @return the number of items in this transportation.
+     */
+    public int getItemsCount() { return itemsCount; }
+
     /**
      * Returns a string representation of the cities in this transportation.
      * @return a string representation of the cities in this transportation.
      */
     public String getCitiesString() {
         StringBuilder sb = new StringBuilder();
-        
-        sb.append(cities.get(0));
-        for (int i=1; i<cities.size(); i++) {
+
+        sb.append(Core.cityIndex.nameOf(cities[0]));
+        for (int i=1; i<cities.length; i++) {
             sb.append(" - ");
-            sb.append(cities.get(i));
+            sb.append(Core.cityIndex.nameOf(cities[i]));
         }
 
         return sb.toString();
@@ -65,10 +190,9 @@ public class Transportation {
     public String getItemsString() {
         StringBuilder sb = new StringBuilder();
 
-        sb.append(String.format("%s (%dx)", items.get(0).getItemName(), items.get(0).getQuantity()));
-        for (int i=1; i<items.size(); i++) {
-            Item item = items.get(i);
-            sb.append(String.format(" - %s (%dx)", item.getItemName(), item.getQuantity()));
+        for (int i=0; i<names.length; i++) {
+            if (i > 0) sb.append(" - ");
+            sb.append(names[i]).append(" (").append(quantities[i]).append("x)");
         }
 
         return sb.toString();
@@ -80,33 +204,7 @@ public class Transportation {
      */
     public String getTransportationString() {
         StringBuilder sb = new StringBuilder();
-        sb.append(String.format("Custo total: R$ %.2f | ", this.getTotalCost()));
-        
-        
-        sb.append("Custo por trecho:\n");
-        int[] nTrucks = this.getNTrucks();
-        int i = 0;
-        for (Integer dist : distancesList) {
-            double cost = dist * (App.SMALL_TRUCK_PRICE*nTrucks[0] + App.MEDIUM_TRUCK_PRICE*nTrucks[1] + App.LARGE_TRUCK_PRICE*nTrucks[2]);
-            sb.append(String.format("\t- %s a %s: R$ %.2f\n", cities.get(i), cities.get(i+1), cost));
-            i++;
-        }
-
-        int totalDist = this.getDistance();
-        
-        sb.append(String.format("Custo médio por km: R$ %.2f | ", getTotalCost()/getDistance()));
-        sb.append(String.format("Em média, cada tipo de produto custou R$ %.2f\n", getTotalCost()/items.size()));
-        
-        sb.append(String.format("Custo por cada modalidade de transporte:\n"));
-        double smallTruckCost = App.SMALL_TRUCK_PRICE * totalDist * nTrucks[0];
-        double mediumTruckCost = App.MEDIUM_TRUCK_PRICE * totalDist * nTrucks[1];
-        double largeTruckCost = App.LARGE_TRUCK_PRICE * totalDist * nTrucks[2];
-        sb.append(String.format("\t- Pequeno porte: R$ %.2f\n", smallTruckCost));
-        sb.append(String.format("\t- Médio porte: R$ %.2f\n", mediumTruckCost));
-        sb.append(String.format("\t- Grande porte: R$ %.2f\n", largeTruckCost));
-        sb.append(String.format("Número total de veículos deslocados: %d\n", nTrucks[0]+nTrucks[1]+nTrucks[2]));
-        sb.append(String.format("Total de itens transportados: %d", getItemsCount()));
-
+        ReportWriter.appendText(sb, this);
         return sb.toString();
     }
 
@@ -114,80 +212,127 @@ public class Transportation {
      * Returns the total weight of the items in this transportation.
      * @return the sum of the weights of all items in this transportation.
      */
-    public double getTotalWeight() {
-        double totalWeight = 0;
-        for (Item i : items) {
-            totalWeight += i.getWeight() * i.getQuantity();
-        }
-
-        return totalWeight;
-    }
+    public double getTotalWeight() { return totalWeight; }
 
     /**
      * Returns the total cost of this transportation.
      * @return the total cost of this transportation.
      */
-    public double getTotalCost() {
-        int[] nTrucks = this.getNTrucks();
-        int distance = this.getDistance();
+    public double getTotalCost() { return totalCost; }
 
-        double smallTruckCost = App.SMALL_TRUCK_PRICE * distance * nTrucks[0];
-        double mediumTruckCost = App.MEDIUM_TRUCK_PRICE * distance * nTrucks[1];
-        double largeTruckCost = App.LARGE_TRUCK_PRICE * distance * nTrucks[2];
-
-        return smallTruckCost + mediumTruckCost + largeTruckCost;
-    }
+    /**
+     * Returns the cost of each leg of the route of this transportation.
+     * @return an array containing the cost of each leg, in the order of the route.
+     */
+    public double[] getLegCosts() { return legCosts.clone(); }
 
     /**
-     * Returns how many trucks of each type will need to be used to deliver this transportation.
-     * @return an array containing the number of small, medium and large trucks necessary for this transportation, respectively.
+     * Returns the cost of a leg of the route of this transportation.
+     * @param i the position of the leg in the route.
+     * @return the cost of the leg from the city at position {@code i} to the next one.
      */
-    public int[] getNTrucks() {
-        double totalWeight = this.getTotalWeight();
+    public double getLegCost(int i) { return legCosts[i]; }
 
-        int nLargeTrucks = (int) totalWeight / App.MAX_WEIGHT_LARGE_TRUCK;
-        int nMediumTrucks = (int) totalWeight % App.MAX_WEIGHT_LARGE_TRUCK / App.MAX_WEIGHT_MEDIUM_TRUCK;
-        
-        double remainingWeight = totalWeight - (nLargeTrucks*App.MAX_WEIGHT_LARGE_TRUCK + nMediumTrucks*App.MAX_WEIGHT_MEDIUM_TRUCK);
-        int nSmallTrucks = (int) Math.ceil(remainingWeight / App.MAX_WEIGHT_LARGE_TRUCK);
+    /**
+     * Returns the cost per km of the trucks used in this transportation.
+     * @return the sum of the prices per km of all trucks used in this transportation.
+     */
+    public double getCostPerKm() { return costPerKm; }
 
-        int[] nTrucks = {nSmallTrucks, nMediumTrucks, nLargeTrucks};
-        return nTrucks;
-    }
+    /**
+     * Returns how many trucks of each type will need to be used to deliver this transportation, which is the cheapest combination of trucks able to carry
+     * the total weight of its items.
+     * @return an array containing the number of vehicles of each class of {@code Core.fleet} necessary for this transportation, in the order of the fleet.
+     */
+    public int[] getNTrucks() { return nTrucks.clone(); }
 
     /**
      * Tells the average cost of this transportation, considering each type of item.
      * @return the average cost of this transportation.
      */
-    public double getAverageCost() { return getTotalCost() / getItemsCount(); }
+    public double getAverageCost() { return averageCost; }
 
     /**
      * Tells the total distance of this transportation.
      * @return the total distance of this transportation.
      */
-    public int getDistance() {
-        int sum = 0;
-        for (Integer dist : distancesList) {
-            sum += dist;
+    public int getDistance() { return distance; }
+
+    /**
+     * Extracts the names of some items, using the instances in the item catalog for the names already there.
+     * @param items the items.
+     * @return the names of the items.
+     */
+    private static String[] namesOf(Item[] items) {
+        String[] names = new String[items.length];
+        for (int i=0; i<items.length; i++) {
+            names[i] = Core.itemCatalog.lookup(items[i].getItemName());
+        }
+        return names;
+    }
+
+    /**
+     * Extracts the names of the items of a manifest, using the instances in the item catalog for the names already there.
+     * @param manifest the manifest.
+     * @return the names of the items.
+     */
+    private static String[] namesOf(Manifest manifest) {
+        String[] names = new String[manifest.size()];
+        for (int i=0; i<names.length; i++) {
+            names[i] = Core.itemCatalog.lookup(manifest.getName(i));
         }
+        return names;
+    }
 
-        return sum;
+    /**
+     * Extracts the weights of some items.
+     * @param items the items.
+     * @return the weights of the items.
+     */
+    private static double[] weightsOf(Item[] items) {
+        double[] weights = new double[items.length];
+        for (int i=0; i<items.length; i++) {
+            weights[i] = items[i].getWeight();
+        }
+        return weights;
+    }
+
+    /**
+     * Extracts the weights of the items of a manifest.
+     * @param manifest the manifest.
+     * @return the weights of the items.
+     */
+    private static double[] weightsOf(Manifest manifest) {
+        double[] weights = new double[manifest.size()];
+        for (int i=0; i<weights.length; i++) {
+            weights[i] = manifest.getWeight(i);
+        }
+        return weights;
+    }
+
+    /**
+     * Extracts the quantities of some items.
+     * @param items the items.
+     * @return the quantities of the items.
+     */
+    private static int[] quantitiesOf(Item[] items) {
+        int[] quantities = new int[items.length];
+        for (int i=0; i<items.length; i++) {
+            quantities[i] = items[i].getQuantity();
+        }
+        return quantities;
     }
 
     /**
-     * Calculates the distances between the cities in the route of the transportation.
+     * Extracts the quantities of the items of a manifest.
+     * @param manifest the manifest.
+     * @return the quantities of the items.
      */
-    private void calculateDistances() {
-        for (int i=0; i<cities.size()-1; i++) {
-            int initCityIdx = -1;
-            int finalCityIdx = -1;
-            String initialCity = cities.get(i);
-            String finalCity = cities.get(i+1);
-            for (int j=0; j<App.cities.length; j++) {
-                if (App.cities[j].equals(initialCity)) initCityIdx = j;
-                else if (App.cities[j].equals(finalCity)) finalCityIdx = j;
-            }
-            distancesList.add(App.distances[initCityIdx][finalCityIdx]);
+    private static int[] quantitiesOf(Manifest manifest) {
+        int[] quantities = new int[manifest.size()];
+        for (int i=0; i<quantities.length; i++) {
+            quantities[i] = manifest.getQuantity(i);
         }
+        return quantities;
     }
 }
@@ -0,0 +1,428 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only journal of the registered transportations. Each transportation is encoded as a binary record (the indexes of the cities of its route,
+ * followed by the name, weight and quantity of each item, and a CRC-32 checksum) and handed to a writer thread, which writes all pending records at once and
+ * then syncs the file a single time (group commit), so registering a transportation never waits for the disk.
+ * <p>
+ * When the journal grows beyond {@code COMPACTION_THRESHOLD} (or the threshold given when it is opened), its records are merged into a snapshot file and
+ * a new, empty journal (of the next generation) is started. On startup, the snapshot and the journal are memory-mapped and replayed into
+ * {@code Core.transportations}; a record torn by a crash at the end of the journal is discarded. The header of both files holds a fingerprint of the names
+ * of the cities, so they are not replayed into a network whose cities are different, or in a different order.
+ * <p>
+ * If a batch cannot be written, the journal is truncated back to the end of the last batch that was synced. If it cannot even be truncated, the journal
+ * is marked as failed, and every transportation appended after that is refused.
+ */
+public class TransportationJournal implements AutoCloseable {
+    public static final long COMPACTION_THRESHOLD = 64L << 20;
+
+    private static final int MAGIC = 0x54524A31;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4*Integer.BYTES + Long.BYTES;
+    private static final ByteBuffer CLOSE = ByteBuffer.allocate(0);
+
+    private final Path logFile;
+    private final Path snapshotFile;
+    private final int cityCount;
+    private final int citiesFingerprint;
+    private final long compactionThreshold;
+    private final BlockingQueue<ByteBuffer> queue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<CompletableFuture<Void>> commits = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private FileChannel log;
+    private long generation;
+    private long committedSize;
+    private boolean closed;
+    private volatile IOException failure;
+
+    private TransportationJournal(Path logFile, Path snapshotFile, String[] cities, long compactionThreshold) {
+        this.logFile = logFile;
+        this.snapshotFile = snapshotFile;
+        this.cityCount = cities.length;
+        this.citiesFingerprint = fingerprint(cities);
+        this.compactionThreshold = compactionThreshold;
+        this.writer = new Thread(this::writeLoop, "transportation-journal");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Opens the journal, replaying the transportations stored in it into {@code Core.transportations}, and starts its writer thread.
+     * @param logFile the path of the journal file.
+     * @param snapshotFile the path of the snapshot file.
+     * @return the opened journal.
+     * @throws IOException if the files cannot be read or written, or if they were written for a different network of cities.
+     */
+    public static TransportationJournal open(Path logFile, Path snapshotFile) throws IOException {
+        return open(logFile, snapshotFile, COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the journal, in the same way as {@code open(logFile, snapshotFile)}, compacting it whenever it grows beyond a given size.
+     * @param logFile the path of the journal file.
+     * @param snapshotFile the path of the snapshot file.
+     * @param compactionThreshold the size of the journal, in bytes, beyond which it is compacted.
+     * @return the opened journal.
+     * @throws IOException if the files cannot be read or written, or if they were written for a different network of cities.
+     */
+    public static TransportationJournal open(Path logFile, Path snapshotFile, long compactionThreshold) throws IOException {
+        TransportationJournal journal = new TransportationJournal(logFile, snapshotFile, Core.cities, compactionThreshold);
+
+        long absorbed = -1;
+        if (Files.isRegularFile(snapshotFile)) absorbed = journal.replay(snapshotFile, -1);
+
+        if (Files.isRegularFile(logFile)) {
+            journal.generation = journal.replay(logFile, absorbed);
+            if (journal.generation <= absorbed) journal.startLog(absorbed + 1);
+            else journal.log = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        else {
+            journal.startLog(absorbed + 1);
+        }
+        journal.committedSize = journal.log.size();
+        journal.log.position(journal.committedSize);
+
+        if (journal.log.size() > compactionThreshold) journal.compact();
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * Appends a transportation to the journal. The transportation is encoded in the calling thread and written by the writer thread.
+     * @param transp the transportation to be appended.
+     * @return a future that is completed once the transportation is durably stored, or completed exceptionally if it cannot be written or the journal
+     * has been closed or has failed.
+     */
+    public CompletableFuture<Void> append(Transportation transp) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        ByteBuffer record = encode(transp);
+        synchronized (this) {
+            if (closed) {
+                done.completeExceptionally(new IOException("The journal " + logFile + " is closed."));
+                return done;
+            }
+            if (failure != null) {
+                done.completeExceptionally(failed());
+                return done;
+            }
+            queue.add(record);
+            commits.add(done);
+        }
+        return done;
+    }
+
+    /**
+     * Writes the pending records, stops the writer thread and closes the journal. Closing a journal that is already closed has no effect.
+     * @throws IOException if the pending records cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            queue.add(CLOSE);
+        }
+        try {
+            writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    /**
+     * Loop of the writer thread: waits for records, writes all the pending ones at once, syncs the file, and compacts the journal when it grows too large.
+     * A batch that cannot be written is rolled back, so the records appended after it are not stored behind a partial record.
+     */
+    private void writeLoop() {
+        List<ByteBuffer> batch = new ArrayList<>();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                batch.add(queue.take());
+            }
+            catch (InterruptedException e) {
+                closing = true;
+            }
+            synchronized (this) {
+                queue.drainTo(batch);
+                commits.drainTo(done);
+            }
+            closing |= batch.remove(CLOSE);
+
+            IOException error = failure != null ? failed() : write(batch);
+            if (error == null) {
+                for (CompletableFuture<Void> f : done) f.complete(null);
+                compactIfNeeded();
+            }
+            else {
+                for (CompletableFuture<Void> f : done) f.completeExceptionally(error);
+            }
+            batch.clear();
+            done.clear();
+        }
+    }
+
+    /**
+     * Writes and syncs a batch of records. If they cannot be written, the journal is truncated back to its size before the batch; if it cannot be
+     * truncated either, the journal is marked as failed.
+     * @param batch the records.
+     * @return {@code null} if the records were durably stored, or the error that prevented it.
+     */
+    private IOException write(List<ByteBuffer> batch) {
+        if (batch.isEmpty()) return null;
+        try {
+            ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+            long remaining = 0;
+            for (ByteBuffer b : buffers) remaining += b.remaining();
+            while (remaining > 0) remaining -= log.write(buffers);
+            log.force(false);
+            committedSize = log.position();
+            return null;
+        }
+        catch (IOException e) {
+            try {
+                log.truncate(committedSize);
+                log.position(committedSize);
+                log.force(false);
+            }
+            catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+                failure = e;
+            }
+            return e;
+        }
+    }
+
+    /**
+     * Compacts the journal if it has grown beyond the compaction threshold. A compaction that fails leaves the stored records where they are, and is
+     * tried again after the next batch.
+     */
+    private void compactIfNeeded() {
+        if (committedSize <= compactionThreshold) return;
+        try {
+            compact();
+        }
+        catch (IOException e) {
+            System.err.println("Failed to compact the journal " + logFile + ".");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the exception with which the transportations refused by the journal are completed.
+     * @return the exception.
+     */
+    private IOException failed() {
+        return new IOException("The journal " + logFile + " has failed.", failure);
+    }
+
+    /**
+     * Merges the records of the journal into the snapshot and starts a new, empty journal of the next generation. The new snapshot records the generation
+     * of the journal it absorbed, so the journal is ignored on replay if a crash happens before it is replaced.
+     * @throws IOException if the files cannot be written.
+     */
+    private void compact() throws IOException {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out, generation);
+            if (Files.isRegularFile(snapshotFile)) {
+                try (FileChannel in = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+                    transfer(in, HEADER_SIZE, in.size() - HEADER_SIZE, out);
+                }
+            }
+            transfer(log, HEADER_SIZE, log.size() - HEADER_SIZE, out);
+            out.force(true);
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        log.close();
+        startLog(generation + 1);
+    }
+
+    /**
+     * Starts a new, empty journal, which atomically replaces the current one.
+     * @param gen the generation of the new journal.
+     * @throws IOException if the journal cannot be written.
+     */
+    private void startLog(long gen) throws IOException {
+        Path tmp = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out, gen);
+            out.force(true);
+        }
+        Files.move(tmp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        generation = gen;
+        log = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        committedSize = log.size();
+        log.position(committedSize);
+    }
+
+    /**
+     * Replays the records of a file into {@code Core.transportations}. A torn or corrupted record ends the replay, and the file is truncated right before it.
+     * @param file the journal or snapshot file.
+     * @param absorbed the generation of the last journal absorbed by the snapshot; a journal of this generation or older is not replayed.
+     * @return the generation stored in the header of the file.
+     * @throws IOException if the file cannot be read, or if it was written for a different network of cities.
+     */
+    private long replay(Path file, long absorbed) throws IOException {
+        long validEnd;
+        long gen;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) throw new IOException("Invalid journal file: " + file);
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) throw new IOException("Invalid journal file: " + file);
+            if (buf.getInt() != cityCount || buf.getInt() != citiesFingerprint) throw new IOException("The journal " + file + " was written for a different network of cities.");
+            gen = buf.getLong();
+            if (gen <= absorbed) return gen;
+
+            validEnd = buf.position();
+            while (buf.remaining() >= 2*Integer.BYTES) {
+                int size = buf.getInt();
+                if (size <= 0 || size > buf.remaining() - Integer.BYTES) break;
+
+                ByteBuffer record = buf.slice().order(ByteOrder.LITTLE_ENDIAN).limit(size);
+                buf.position(buf.position() + size);
+                CRC32 crc = new CRC32();
+                crc.update(record.duplicate());
+                if ((int) crc.getValue() != buf.getInt()) break;
+
+                Core.transportations.add(decode(record));
+                validEnd = buf.position();
+            }
+        }
+
+        if (validEnd < Files.size(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validEnd);
+                channel.force(true);
+            }
+        }
+        return gen;
+    }
+
+    /**
+     * Encodes a transportation as a record: its size, its contents, and the CRC-32 of its contents.
+     * @param transp the transportation to be encoded.
+     * @return the encoded record.
+     */
+    private static ByteBuffer encode(Transportation transp) {
+        int[] route = transp.getRoute();
+        int types = transp.getItemTypesCount();
+        byte[][] names = new byte[types][];
+        int size = Integer.BYTES * (2 + route.length);
+        for (int i=0; i<types; i++) {
+            names[i] = transp.getItemName(i).getBytes(StandardCharsets.UTF_8);
+            size += Integer.BYTES + names[i].length + Double.BYTES + Integer.BYTES;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size + 2*Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(size);
+        buf.putInt(route.length);
+        for (int c : route) buf.putInt(c);
+        buf.putInt(types);
+        for (int i=0; i<types; i++) {
+            buf.putInt(names[i].length).put(names[i]);
+            buf.putDouble(transp.getItemWeight(i)).putInt(transp.getItemQuantity(i));
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), Integer.BYTES, size);
+        buf.putInt((int) crc.getValue());
+        return buf.flip();
+    }
+
+    /**
+     * Decodes the contents of a record.
+     * @param record the contents of the record, without its size and checksum.
+     * @return the decoded transportation.
+     * @throws IOException if the record refers to a city that is not in the network, or to a leg with no path between its cities.
+     */
+    private Transportation decode(ByteBuffer record) throws IOException {
+        int[] route = new int[record.getInt()];
+        for (int i=0; i<route.length; i++) {
+            route[i] = record.getInt();
+            if (route[i] < 0 || route[i] >= cityCount) throw new IOException("Invalid city in the journal: " + route[i]);
+        }
+
+        int types = record.getInt();
+        String[] names = new String[types];
+        double[] weights = new double[types];
+        int[] quantities = new int[types];
+        for (int i=0; i<types; i++) {
+            byte[] name = new byte[record.getInt()];
+            record.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+            weights[i] = record.getDouble();
+            quantities[i] = record.getInt();
+        }
+        try {
+            return Transportation.restore(route, new Manifest(names, weights, quantities, types));
+        }
+        catch (IllegalArgumentException e) {
+            throw new IOException("Invalid transportation in the journal: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the header of a journal or snapshot file.
+     * @param out the file.
+     * @param gen the generation of the journal (or, for a snapshot, of the last journal absorbed by it).
+     * @throws IOException if the file cannot be written.
+     */
+    private void writeHeader(FileChannel out, long gen) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(cityCount).putInt(citiesFingerprint).putLong(gen).flip();
+        while (header.hasRemaining()) out.write(header);
+    }
+
+    /**
+     * Computes the fingerprint of the network of cities stored in the header of the files: the CRC-32 of the names of the cities, in order.
+     * @param cities the names of the cities.
+     * @return the fingerprint of the cities.
+     */
+    private static int fingerprint(String[] cities) {
+        CRC32 crc = new CRC32();
+        for (String city : cities) {
+            crc.update(city.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Copies a range of bytes from a file to the end of another.
+     * @param in the source file.
+     * @param from the position of the first byte to be copied.
+     * @param count how many bytes to copy.
+     * @param out the destination file.
+     * @throws IOException if the files cannot be read or written.
+     */
+    private static void transfer(FileChannel in, long from, long count, FileChannel out) throws IOException {
+        long copied = 0;
+        while (copied < count) {
+            copied += in.transferTo(from + copied, count - copied, out);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe registry of the transportations registered in the program. Transportations are appended without locks, in chunks that are allocated on demand,
+ * and running totals (cost, distance, trucks of each type and items) are updated as each transportation is added, on striped counters, so that concurrent
+ * writers do not contend with each other. The statistics of the registry are therefore available at any time, in constant time, even while transportations
+ * are still being added.
+ */
+public class TransportationRegistry {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_BITS);
+
+    /**
+     * Statistics of the transportations in the registry at a given moment.
+     */
+    public static class Statistics {
+        private final long count;
+        private final double totalCost;
+        private final long totalDistance;
+        private final long[] nTrucks;
+        private final long itemsCount;
+
+        private Statistics(long count, double totalCost, long totalDistance, long[] nTrucks, long itemsCount) {
+            this.count = count;
+            this.totalCost = totalCost;
+            this.totalDistance = totalDistance;
+            this.nTrucks = nTrucks;
+            this.itemsCount = itemsCount;
+        }
+
+        /**
+         * Tells how many transportations have been registered.
+         * @return the number of transportations.
+         */
+        public long getCount() { return count; }
+
+        /**
+         * Tells the sum of the costs of all transportations.
+         * @return the total cost of the transportations.
+         */
+        public double getTotalCost() { return totalCost; }
+
+        /**
+         * Tells the sum of the distances of all transportations.
+         * @return the total distance of the transportations, in km.
+         */
+        public long getTotalDistance() { return totalDistance; }
+
+        /**
+         * Tells how many trucks of each type have been used by all transportations.
+         * @return an array containing the number of vehicles of each class of {@code Core.fleet}, in the order of the fleet.
+         */
+        public long[] getNTrucks() { return nTrucks.clone(); }
+
+        /**
+         * Tells how many items have been transported by all transportations.
+         * @return the total number of items.
+         */
+        public long getItemsCount() { return itemsCount; }
+
+        /**
+         * Tells the average cost per km of all transportations.
+         * @return the total cost divided by the total distance, or 0 if no distance has been covered.
+         */
+        public double getCostPerKm() { return totalDistance == 0 ? 0 : totalCost / totalDistance; }
+    }
+
+    private final AtomicReferenceArray<AtomicReferenceArray<Transportation>> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger reserved = new AtomicInteger();
+
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder totalCost = new DoubleAdder();
+    private final LongAdder totalDistance = new LongAdder();
+    private final LongAdder[] nTrucks;
+    private final LongAdder itemsCount = new LongAdder();
+
+    public TransportationRegistry() {
+        nTrucks = new LongAdder[Core.truckMixTable.getTypesCount()];
+        for (int k=0; k<nTrucks.length; k++) {
+            nTrucks[k] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds a transportation to the registry and updates the statistics.
+     * @param transp the transportation to be added.
+     * @return the position of the transportation in the registry.
+     * @throws IllegalStateException if the registry is full.
+     */
+    public int add(Transportation transp) throws IllegalStateException {
+        int idx = reserved.getAndIncrement();
+        if (idx < 0) throw new IllegalStateException("The registry is full.");
+
+        chunk(idx >>> CHUNK_BITS).set(idx & (CHUNK_SIZE-1), transp);
+
+        totalCost.add(transp.getTotalCost());
+        totalDistance.add(transp.getDistance());
+        itemsCount.add(transp.getItemsCount());
+        int[] trucks = transp.getNTrucks();
+        for (int k=0; k<trucks.length; k++) {
+            nTrucks[k].add(trucks[k]);
+        }
+        count.increment();
+        return idx;
+    }
+
+    /**
+     * Tells how many transportations have been added to the registry.
+     * @return the number of transportations in the registry.
+     */
+    public int size() { return reserved.get(); }
+
+    /**
+     * Tells whether the registry is empty.
+     * @return {@code true} if no transportation has been added to the registry, {@code false} otherwise.
+     */
+    public boolean isEmpty() { return size() == 0; }
+
+    /**
+     * Returns a transportation in the registry. If the transportation is still being added by another thread, waits for it.
+     * @param idx the position of the transportation in the registry.
+     * @return the transportation.
+     * @throws IndexOutOfBoundsException if there is no transportation in the position.
+     */
+    public Transportation get(int idx) throws IndexOutOfBoundsException {
+        if (idx < 0 || idx >= size()) throw new IndexOutOfBoundsException("No transportation at position " + idx);
+
+        Transportation transp;
+        while ((transp = chunk(idx >>> CHUNK_BITS).get(idx & (CHUNK_SIZE-1))) == null) {
+            Thread.onSpinWait();
+        }
+        return transp;
+    }
+
+    /**
+     * Performs an action for each transportation in the registry, in the order they were added. Transportations added while the action is performed
+     * are not included.
+     * @param action the action to be performed.
+     */
+    public void forEach(Consumer<Transportation> action) {
+        int n = size();
+        for (int i=0; i<n; i++) {
+            action.accept(get(i));
+        }
+    }
+
+    /**
+     * Returns the statistics of the transportations in the registry. The statistics are read from running totals and, if transportations are being added
+     * concurrently, may include only part of the transportations being added.
+     * @return the statistics of the registry.
+     */
+    public Statistics getStatistics() {
+        long[] trucks = new long[nTrucks.length];
+        for (int k=0; k<trucks.length; k++) {
+            trucks[k] = nTrucks[k].sum();
+        }
+        return new Statistics(count.sum(), totalCost.sum(), totalDistance.sum(), trucks, itemsCount.sum());
+    }
+
+    /**
+     * Returns a chunk of the registry, allocating it if needed.
+     * @param c the index of the chunk.
+     * @return the chunk.
+     */
+    private AtomicReferenceArray<Transportation> chunk(int c) {
+        AtomicReferenceArray<Transportation> chunk = chunks.get(c);
+        if (chunk == null) {
+            chunks.compareAndSet(c, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+            chunk = chunks.get(c);
+        }
+        return chunk;
+    }
+}
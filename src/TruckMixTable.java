@@ -0,0 +1,142 @@
+/**
+ * Lookup table with the cheapest combination of trucks able to carry each weight. The weights are grouped in buckets whose size is the greatest
+ * common divisor of the capacities of the trucks, and the cheapest combination for each bucket is found once, when the table is built, by dynamic
+ * programming. Weights beyond the table are handled by adding trucks of the type with the lowest price per kg until the remaining weight fits in it.
+ * <p>
+ * This is exact because the table is never smaller than {@code (c/g - 1) * m/g} buckets, where {@code c} is the capacity of the type with the lowest
+ * price per kg, {@code m} the largest capacity and {@code g} the size of the buckets: among any {@code c/g} other trucks there is a group whose
+ * capacities add up to a multiple of {@code c}, which can be replaced by trucks of the cheapest type for no more, so some cheapest combination has fewer
+ * than {@code c/g} other trucks and, for any weight beyond the table, at least one truck of the cheapest type.
+ */
+public class TruckMixTable {
+    /** Number of weight buckets in the tables built by the program. */
+    public static final int DEFAULT_BUCKETS = 1024;
+    /** Largest number of weight buckets of a table. */
+    public static final int MAX_BUCKETS = 1 << 20;
+
+    private final double[] prices;
+    private final int[] capacities;
+    private final int bucketSize;
+    private final int buckets;
+    private final int types;
+    private final int cheapestType;
+    private final double[] costs;
+    private final int[] mixes;
+
+    /**
+     * Builds the table.
+     * @param prices the price per km of each type of truck.
+     * @param capacities the maximum weight (in kg) carried by each type of truck, in the same order as the prices.
+     * @param buckets the number of weight buckets in the table.
+     * @throws IllegalArgumentException if there are no trucks, if any of the prices or capacities is not positive, or if the capacities have so small a
+     * common divisor that the table would need more than {@code MAX_BUCKETS} buckets.
+     */
+    public TruckMixTable(double[] prices, int[] capacities, int buckets) throws IllegalArgumentException {
+        if (prices.length == 0 || prices.length != capacities.length) throw new IllegalArgumentException("There must be one price for each capacity.");
+
+        this.prices = prices.clone();
+        this.capacities = capacities.clone();
+        this.types = prices.length;
+
+        int gcd = 0;
+        int cheapest = 0;
+        int largest = 0;
+        for (int k=0; k<types; k++) {
+            if (prices[k] <= 0 || capacities[k] <= 0) throw new IllegalArgumentException("Prices and capacities must be positive.");
+            gcd = gcd(gcd, capacities[k]);
+            if (prices[k] / capacities[k] < prices[cheapest] / capacities[cheapest]) cheapest = k;
+            largest = Math.max(largest, capacities[k]);
+        }
+        long exact = Math.max((long) (capacities[cheapest] / gcd - 1) * (largest / gcd), capacities[cheapest] / gcd);
+        if (exact > MAX_BUCKETS) throw new IllegalArgumentException("The capacities of the trucks need a table of " + exact + " weight buckets.");
+        this.bucketSize = gcd;
+        this.cheapestType = cheapest;
+        this.buckets = (int) Math.max(buckets, exact);
+
+        costs = new double[this.buckets + 1];
+        mixes = new int[(this.buckets + 1) * types];
+        int[] nTrucks = new int[this.buckets + 1];
+        for (int b=1; b<=this.buckets; b++) {
+            costs[b] = Double.POSITIVE_INFINITY;
+            int best = -1;
+            for (int k=0; k<types; k++) {
+                int prev = Math.max(b - capacities[k] / gcd, 0);
+                double cost = costs[prev] + prices[k];
+                if (cost < costs[b] || (cost == costs[b] && nTrucks[prev] + 1 < nTrucks[b])) {
+                    costs[b] = cost;
+                    nTrucks[b] = nTrucks[prev] + 1;
+                    best = k;
+                }
+            }
+
+            int prev = Math.max(b - capacities[best] / gcd, 0);
+            System.arraycopy(mixes, prev * types, mixes, b * types, types);
+            mixes[b * types + best]++;
+        }
+    }
+
+    /**
+     * Tells how many types of truck are in this table.
+     * @return the number of types of truck.
+     */
+    public int getTypesCount() { return types; }
+
+    /**
+     * Tells the weight bucket of a given weight.
+     * @param weight the weight, in kg.
+     * @return the index of the bucket, which may be beyond the end of the table.
+     */
+    public long bucketOf(double weight) {
+        if (weight <= 0) return 0;
+        return (long) Math.ceil(weight / bucketSize);
+    }
+
+    /**
+     * Tells the cheapest combination of trucks able to carry a weight.
+     * @param weight the weight, in kg.
+     * @return an array with the number of trucks of each type, in the same order as the prices given to the table.
+     */
+    public int[] mix(double weight) {
+        long bucket = bucketOf(weight);
+        long extra = extraTrucks(bucket);
+        int b = (int) (bucket - extra * (capacities[cheapestType] / bucketSize));
+
+        int[] mix = new int[types];
+        System.arraycopy(mixes, b * types, mix, 0, types);
+        mix[cheapestType] += (int) extra;
+        return mix;
+    }
+
+    /**
+     * Tells the price per km of the cheapest combination of trucks able to carry a weight.
+     * @param weight the weight, in kg.
+     * @return the sum of the prices per km of the trucks.
+     */
+    public double costPerKm(double weight) {
+        long bucket = bucketOf(weight);
+        long extra = extraTrucks(bucket);
+        int b = (int) (bucket - extra * (capacities[cheapestType] / bucketSize));
+        return costs[b] + extra * prices[cheapestType];
+    }
+
+    /**
+     * Tells how many trucks of the type with the lowest price per kg must be added for the remaining weight to fit in the table.
+     * @param bucket the weight bucket.
+     * @return the number of trucks to be added.
+     */
+    private long extraTrucks(long bucket) {
+        if (bucket <= buckets) return 0;
+        long step = capacities[cheapestType] / bucketSize;
+        return (bucket - buckets + step - 1) / step;
+    }
+
+    /**
+     * Calculates the greatest common divisor of two numbers.
+     * @param a the first number.
+     * @param b the second number.
+     * @return the greatest common divisor of the numbers.
+     */
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}